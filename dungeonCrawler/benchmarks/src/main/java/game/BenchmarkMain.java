@@ -0,0 +1,28 @@
+package game;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// runs the benchmarks with the usual JMH command line, but writes the results
+// as JSON to jmh-result.json by default so runs can be compared over time
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()){
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()){
+            options.result("jmh-result.json");
+        }
+        // render into offscreen images only, never open a window
+        System.setProperty("java.awt.headless", "true");
+        new Runner(options.jvmArgsAppend("-Djava.awt.headless=true").build()).run();
+    }
+}
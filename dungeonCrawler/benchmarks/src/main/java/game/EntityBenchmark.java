@@ -0,0 +1,48 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// one tick of every monster in a 20 room dungeon, split evenly between the
+// rooms, with the player standing in the first one. a tick has 25 ms to run in
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    private static final int ROOMS = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entities;
+
+    private Entities monsters;
+    private Room playerRoom;
+    private final FlowField flow = new FlowField();
+    private long ticks;
+
+    @Setup
+    public void setup(){
+        Dungeon dungeon = new Dungeon(ROOMS, 42);
+        monsters = new Entities(42);
+        for (Room room : dungeon.rooms){
+            monsters.populate(room, entities / ROOMS);
+        }
+        playerRoom = dungeon.rooms.get(0);
+        for (int tile = 0; tile < playerRoom.tiles.length; tile++){
+            if (playerRoom.tiles[tile] == 0){
+                flow.update(playerRoom, tile % Dungeon.COLUMNS, tile / Dungeon.COLUMNS);
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public int tick(){
+        monsters.tick(++ticks, playerRoom, flow);
+        return monsters.count;
+    }
+}
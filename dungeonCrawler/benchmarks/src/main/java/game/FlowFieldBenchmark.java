@@ -0,0 +1,101 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import static game.Dungeon.*;
+
+// one tick of monsters chasing the player around a generated room: every
+// monster works out which tile it steps to next, either by looking it up in a
+// flow field worked out once for the tick or by searching for a path of its own.
+// the player moves every tick so the field is always worked out again, and the
+// monsters don't actually take their step so every tick does the same work
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowFieldBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int agents;
+
+    private Room room;
+    private int[] agentX;
+    private int[] agentY;
+    private int[] nextX;
+    private int[] nextY;
+    // two floor tiles next to each other the player steps between
+    private int playerX;
+    private int playerY;
+    private int otherX;
+    private int otherY;
+
+    private final FlowField field = new FlowField();
+    private final Pathfinder pathfinder = new Pathfinder();
+
+    @Setup
+    public void setup(){
+        room = new Dungeon(9, 42).rooms.get(0);
+        SplittableRandom random = new SplittableRandom(42);
+        agentX = new int[agents];
+        agentY = new int[agents];
+        nextX = new int[agents];
+        nextY = new int[agents];
+        for (int i = 0; i < agents; i++){
+            do {
+                agentX[i] = random.nextInt(COLUMNS);
+                agentY[i] = random.nextInt(ROWS);
+            } while (!room.isWalkable(agentX[i], agentY[i]));
+        }
+
+        for (int y = 1; y < ROWS - 1; y++){
+            for (int x = 1; x < COLUMNS - 2; x++){
+                if (room.get(x, y) == 0 && room.get(x + 1, y) == 0){
+                    playerX = x;
+                    playerY = y;
+                    otherX = x + 1;
+                    otherY = y;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void movePlayer(){
+        int x = playerX;
+        int y = playerY;
+        playerX = otherX;
+        playerY = otherY;
+        otherX = x;
+        otherY = y;
+    }
+
+    @Benchmark
+    public int[] flowField(){
+        movePlayer();
+        field.update(room, playerX, playerY);
+        for (int i = 0; i < agents; i++){
+            byte dir = field.direction(agentX[i], agentY[i]);
+            nextX[i] = dir == FlowField.NONE ? agentX[i] : agentX[i] + FlowField.DX[dir];
+            nextY[i] = dir == FlowField.NONE ? agentY[i] : agentY[i] + FlowField.DY[dir];
+        }
+        return nextX;
+    }
+
+    @Benchmark
+    public int[] pathPerAgent(){
+        movePlayer();
+        for (int i = 0; i < agents; i++){
+            ArrayList<Node> path = pathfinder.find(room, agentX[i], agentY[i], playerX, playerY);
+            Node next = path != null && path.size() > 1 ? path.get(1) : null;
+            nextX[i] = next != null ? next.x : agentX[i];
+            nextY[i] = next != null ? next.y : agentY[i];
+        }
+        return nextX;
+    }
+}
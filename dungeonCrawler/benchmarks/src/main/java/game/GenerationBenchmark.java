@@ -0,0 +1,43 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// laying out a dungeon and filling its rooms, and punching the doors between them
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int rooms;
+
+    private ArrayList<Room> layout;
+    private RoomIndex index;
+
+    @Setup
+    public void setup(){
+        index = new RoomIndex(rooms);
+        layout = Dungeon.generateRooms(rooms, index, new SplittableRandom(42));
+    }
+
+    @Benchmark
+    public Dungeon generate(){
+        return new Dungeon(rooms, 42);
+    }
+
+    @Benchmark
+    public ArrayList<Room> createDoors(){
+        // doors only ever get set, so running it again over the same rooms costs the same
+        for (Room room : layout){
+            Dungeon.createDoors(room, index);
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,56 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import static game.Dungeon.*;
+
+// A* and jump point search from one corner of a room to the opposite one
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderBenchmark {
+
+    @Param({"empty", "maze", "unreachable"})
+    public String layout;
+
+    private Room room;
+    private final Pathfinder pathfinder = new Pathfinder();
+    private final JumpPointSearch jps = new JumpPointSearch(false);
+    private final JumpPointSearch jpsDiagonal = new JumpPointSearch(true);
+
+    @Setup
+    public void setup(){
+        switch (layout){
+            case "maze":
+                room = Rooms.maze();
+                break;
+            case "unreachable":
+                room = Rooms.unreachable();
+                break;
+            default:
+                room = Rooms.empty();
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Node> find(){
+        return pathfinder.find(room, 1, 1, COLUMNS - 2, ROWS - 2);
+    }
+
+    // the jump tables are built on the first call and reused after that
+    @Benchmark
+    public ArrayList<Node> jps(){
+        return jps.find(room, 1, 1, COLUMNS - 2, ROWS - 2);
+    }
+
+    @Benchmark
+    public ArrayList<Node> jpsDiagonal(){
+        return jpsDiagonal.find(room, 1, 1, COLUMNS - 2, ROWS - 2);
+    }
+}
@@ -0,0 +1,56 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import static game.Board.*;
+import static game.Dungeon.*;
+
+// drawing a room into an offscreen image, tile by tile and from a pre-rendered background
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    private Room room;
+    private BufferedImage target;
+    private Graphics2D g;
+    private BufferedImage background;
+
+    @Setup
+    public void setup(){
+        Dungeon dungeon = new Dungeon(9, 42);
+        room = dungeon.rooms.get(0);
+
+        target = new BufferedImage(TILE_SIZE * COLUMNS, TILE_SIZE * ROWS, BufferedImage.TYPE_INT_RGB);
+        g = target.createGraphics();
+
+        background = new BufferedImage(TILE_SIZE * COLUMNS, TILE_SIZE * ROWS, BufferedImage.TYPE_INT_RGB);
+        Graphics2D bg = background.createGraphics();
+        Board.drawBackground(bg, room);
+        bg.dispose();
+    }
+
+    @TearDown
+    public void tearDown(){
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage drawTiles(){
+        Board.drawBackground(g, room);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage blitCached(){
+        g.drawImage(background, 0, 0, null);
+        return target;
+    }
+}
@@ -0,0 +1,51 @@
+package game;
+
+import static game.Dungeon.*;
+
+// fixed room layouts for the benchmarks, built the same way every run
+final class Rooms {
+
+    private Rooms(){
+    }
+
+    // nothing but the outer walls
+    static Room empty(){
+        Room room = new Room(new byte[COLUMNS * ROWS], 0, 0);
+        for (int row = 0; row < ROWS; row++){
+            for (int col = 0; col < COLUMNS; col++){
+                if (col == 0 || col == COLUMNS - 1 || row == 0 || row == ROWS - 1){
+                    room.set(col, row, 1);
+                }
+            }
+        }
+        return room;
+    }
+
+    // every other column is a wall with a single gap, alternating between the
+    // top and bottom, so a path from left to right has to snake through all of them
+    static Room maze(){
+        Room room = empty();
+        for (int col = 2; col < COLUMNS - 2; col += 2){
+            int gap = (col / 2) % 2 == 0 ? 1 : ROWS - 2;
+            for (int row = 1; row < ROWS - 1; row++){
+                if (row != gap){
+                    room.set(col, row, 1);
+                }
+            }
+        }
+        return room;
+    }
+
+    // the goal is walled in, so the search has to exhaust everything it can
+    // reach before giving up
+    static Room unreachable(){
+        Room room = empty();
+        for (int row = ROWS - 4; row < ROWS - 1; row++){
+            for (int col = COLUMNS - 4; col < COLUMNS - 1; col++){
+                room.set(col, row, 1);
+            }
+        }
+        room.set(COLUMNS - 2, ROWS - 2, 0);
+        return room;
+    }
+}
@@ -0,0 +1,151 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+import static game.Board.*;
+
+// every image the game draws, loaded once at startup and shared by whatever
+// draws it. images are looked up on the classpath under /images/ (the images
+// folder is a resource root of the module) and, when running from loose class
+// files, in dungeonCrawler/images/. each one is redrawn into an image in the
+// screen's own pixel format, scaled to fit a tile, so drawing it every frame
+// is a plain copy Java2D can keep in video memory.
+//
+// an atlas is one image with many sprites packed into it, plus a
+// NAME.atlas properties file next to it giving each sprite as
+// name=x,y,width,height. its sprites are looked up by name like any image
+public class Assets {
+
+    // the images loaded at startup, without the .png
+    public static final String[] IMAGES = {"player"};
+    // sprite sheets loaded at startup, each needs a NAME.png and a NAME.atlas
+    public static final String[] ATLASES = {};
+
+    private static final String CLASSPATH_FOLDER = "/images/";
+    private static final String FILE_FOLDER = "dungeonCrawler/images/";
+
+    private final GraphicsConfiguration config;
+    private final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<>();
+
+    // how long loading took
+    public long nanos;
+
+    public Assets(){
+        config = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    public void loadAll(){
+        loadAll(IMAGES, ATLASES);
+    }
+
+    // loads images and atlases by name, decoding them in parallel. anything
+    // missing is reported and left out, get() returns null for it
+    public void loadAll(String[] imageNames, String[] atlasNames){
+        long start = System.nanoTime();
+        Arrays.stream(imageNames).parallel().forEach(name -> {
+            try {
+                images.put(name, prepare(read(name + ".png")));
+            } catch (IOException exc) {
+                System.out.println("Error opening image file: " + exc.getMessage());
+            }
+        });
+        Arrays.stream(atlasNames).parallel().forEach(name -> {
+            try {
+                images.putAll(atlas(name));
+            } catch (IOException exc) {
+                System.out.println("Error opening atlas: " + exc.getMessage());
+            }
+        });
+        nanos = System.nanoTime() - start;
+        Metrics.ASSETS.record(nanos);
+    }
+
+    // a loaded image or atlas sprite, TILE_SIZE square
+    public BufferedImage get(String name){
+        return images.get(name);
+    }
+
+    public int size(){
+        return images.size();
+    }
+
+    private Map<String, BufferedImage> atlas(String name) throws IOException {
+        BufferedImage sheet = read(name + ".png");
+        Properties sprites = new Properties();
+        try (InputStream in = open(name + ".atlas")){
+            sprites.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        HashMap<String, BufferedImage> cut = new HashMap<>();
+        for (String sprite : sprites.stringPropertyNames()){
+            String[] bounds = sprites.getProperty(sprite).split(",");
+            if (bounds.length != 4){
+                throw new IOException(name + ".atlas: " + sprite + " should be x,y,width,height");
+            }
+            int x = Integer.parseInt(bounds[0].trim());
+            int y = Integer.parseInt(bounds[1].trim());
+            int width = Integer.parseInt(bounds[2].trim());
+            int height = Integer.parseInt(bounds[3].trim());
+            if (x < 0 || y < 0 || width <= 0 || height <= 0
+                    || x + width > sheet.getWidth() || y + height > sheet.getHeight()){
+                throw new IOException(name + ".atlas: " + sprite + " is outside the sheet");
+            }
+            cut.put(sprite, prepare(sheet.getSubimage(x, y, width, height)));
+        }
+        return cut;
+    }
+
+    private static BufferedImage read(String file) throws IOException {
+        try (InputStream in = open(file)){
+            BufferedImage image = ImageIO.read(in);
+            if (image == null){
+                throw new IOException(file + " is not an image");
+            }
+            return image;
+        }
+    }
+
+    private static InputStream open(String file) throws IOException {
+        InputStream in = Assets.class.getResourceAsStream(CLASSPATH_FOLDER + file);
+        if (in != null){
+            return in;
+        }
+        // not on the classpath, try the project folder
+        File fallback = new File(FILE_FOLDER + file);
+        if (!fallback.exists()){
+            throw new IOException(file + " not found on the classpath or in " + FILE_FOLDER);
+        }
+        return new FileInputStream(fallback);
+    }
+
+    // scales the image to fit a tile, keeping its shape and centring it, into
+    // an image the screen can draw without converting
+    private BufferedImage prepare(BufferedImage source){
+        BufferedImage image = config != null
+                ? config.createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.TRANSLUCENT)
+                : new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        double scale = Math.min((double) TILE_SIZE / source.getWidth(), (double) TILE_SIZE / source.getHeight());
+        int width = (int) Math.round(source.getWidth() * scale);
+        int height = (int) Math.round(source.getHeight() * scale);
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, (TILE_SIZE - width) / 2, (TILE_SIZE - height) / 2, width, height, null);
+        g.dispose();
+        return image;
+    }
+}
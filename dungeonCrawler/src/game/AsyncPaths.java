@@ -0,0 +1,111 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// runs path searches on a background thread so a long one never holds up
+// input or painting. only the newest request matters: making one calls off
+// the search that is running and drops any that haven't started. a search
+// never sees the live room, it works on a copy of the tiles taken when it was
+// asked for, so tiles changing half way through can't tear its view of them.
+// results are handed to the completion executor, which the world drains at
+// the start of a tick, on whatever thread runs the ticks
+public class AsyncPaths {
+
+    // used by the worker thread only. its stats are written there as it
+    // searches, read lastExpanded and lastNanos below instead
+    public final PathService paths = new PathService();
+
+    private final Executor completion;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pathfinder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the newest request, anything older is stale
+    private final AtomicLong latest = new AtomicLong();
+    private Future<?> pending;
+    // one copy of each room's tiles per room version, shared by the requests
+    // made while the room stays the same so the path cache still hits
+    private final WeakHashMap<Room, Room> snapshots = new WeakHashMap<>();
+
+    // searches that were called off before they finished or before they started
+    public long cancelled;
+    // the nodes expanded by the last search handed back and how long it took.
+    // like cancelled they are only written by the completion executor, so the
+    // thread that runs the ticks reads them whole and up to date
+    public int lastExpanded;
+    public long lastNanos;
+
+    public AsyncPaths(Executor completionIn){
+        completion = completionIn;
+    }
+
+    // asks for a path and returns the request's id. done gets the path, or null
+    // if there is none, unless a newer request comes in first. call from the
+    // thread that runs the ticks
+    public long request(Room room, int startX, int startY, int endX, int endY, Consumer<ArrayList<Node>> done){
+        long id = latest.incrementAndGet();
+        if (pending != null && pending.cancel(false)){
+            cancelled++;
+        }
+        Room snapshot = snapshot(room);
+        pending = worker.submit(() -> {
+            if (latest.get() != id){
+                return;
+            }
+            paths.setCancelled(() -> latest.get() != id);
+            ArrayList<Node> path = paths.find(snapshot, startX, startY, endX, endY);
+            if (paths.lastCancelled || latest.get() != id){
+                completion.execute(() -> cancelled++);
+                return;
+            }
+            int expanded = paths.lastExpanded;
+            long nanos = paths.lastNanos;
+            completion.execute(() -> {
+                lastExpanded = expanded;
+                lastNanos = nanos;
+                // checked again here, a newer request may have come in while this waited
+                if (latest.get() == id){
+                    done.accept(path);
+                }
+            });
+        });
+        return id;
+    }
+
+    // the worker's service is only touched on its own thread, so a change of
+    // how it searches is queued behind the requests already made and applies
+    // to every one made after it
+    public void setMode(SearchMode mode){
+        worker.execute(() -> paths.setMode(mode));
+    }
+
+    public void setMovement(MovementModel model, double weight){
+        worker.execute(() -> paths.setMovement(model, weight));
+    }
+
+    // drops whatever is running or waiting
+    public void cancel(){
+        latest.incrementAndGet();
+    }
+
+    public boolean isBusy(){
+        return pending != null && !pending.isDone();
+    }
+
+    private Room snapshot(Room room){
+        Room snapshot = snapshots.get(room);
+        if (snapshot == null || snapshot.version != room.version){
+            snapshot = room.snapshot();
+            snapshots.put(room, snapshot);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,119 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static game.Board.*;
+
+// pre-renders room backgrounds in square chunks of tiles, each on first use,
+// and keeps only the most recently drawn ones. a room far bigger than the
+// board is never rendered whole, only the chunks the view has passed over
+public class BackgroundCache {
+
+    // chunk size in tiles
+    public static final int CHUNK = 8;
+    // how many chunk images to keep, override with -Ddungeon.cachedChunks=N
+    public static final int CAPACITY = Integer.getInteger("dungeon.cachedChunks", 48);
+
+    // which chunk of which room
+    private static class Key {
+        final Room room;
+        final int col;
+        final int row;
+
+        Key(Room roomIn, int colIn, int rowIn){
+            room = roomIn;
+            col = colIn;
+            row = rowIn;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return room == key.room && col == key.col && row == key.row;
+        }
+
+        @Override
+        public int hashCode(){
+            return (System.identityHashCode(room) * 31 + col) * 31 + row;
+        }
+    }
+
+    // an image and the room version it was rendered from
+    private static class Entry {
+        final BufferedImage image;
+        final int version;
+
+        Entry(BufferedImage imageIn, int versionIn){
+            image = imageIn;
+            version = versionIn;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> recent = new LinkedHashMap<>(64, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest){
+            return size() > CAPACITY;
+        }
+    };
+
+    private final Board board;
+
+    public BackgroundCache(Board boardIn){
+        board = boardIn;
+    }
+
+    // draws the chunks of the room that overlap the area, given in room pixels
+    public void draw(Graphics g, Room room, Rectangle area){
+        int chunkPixels = CHUNK * TILE_SIZE;
+        int firstCol = Math.max(0, area.x / chunkPixels);
+        int firstRow = Math.max(0, area.y / chunkPixels);
+        int lastCol = Math.min((room.width - 1) / CHUNK, (area.x + area.width - 1) / chunkPixels);
+        int lastRow = Math.min((room.height - 1) / CHUNK, (area.y + area.height - 1) / chunkPixels);
+        for (int row = firstRow; row <= lastRow; row++){
+            for (int col = firstCol; col <= lastCol; col++){
+                g.drawImage(get(room, col, row), col * chunkPixels, row * chunkPixels, board);
+            }
+        }
+    }
+
+    public BufferedImage get(Room room, int col, int row){
+        // looking the entry up also marks the chunk as the most recently drawn
+        Key key = new Key(room, col, row);
+        Entry entry = recent.get(key);
+        if (entry == null || entry.version != room.version){
+            // a tile changed since it was rendered
+            entry = new Entry(render(room, col, row), room.version);
+            recent.put(key, entry);
+        }
+        return entry.image;
+    }
+
+    private BufferedImage render(Room room, int col, int row){
+        int firstCol = col * CHUNK;
+        int firstRow = row * CHUNK;
+        int cols = Math.min(CHUNK, room.width - firstCol);
+        int rows = Math.min(CHUNK, room.height - firstRow);
+        int width = TILE_SIZE * cols;
+        int height = TILE_SIZE * rows;
+
+        // match the screen's pixel format so drawing the image is a straight copy
+        GraphicsConfiguration config = board.getGraphicsConfiguration();
+        BufferedImage image = config != null
+                ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g = image.createGraphics();
+        g.setColor(board.getBackground());
+        g.fillRect(0, 0, width, height);
+        g.translate(-firstCol * TILE_SIZE, -firstRow * TILE_SIZE);
+        Board.drawBackground(g, room, firstCol, firstRow, firstCol + cols, firstRow + rows);
+        g.dispose();
+        return image;
+    }
+}
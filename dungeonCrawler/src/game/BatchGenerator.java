@@ -0,0 +1,209 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+// generates dungeons for a run of seeds on every core and scores each one, for
+// mining seeds without opening a window. only Dungeon and Room are used, so no
+// AWT class is ever loaded. the seeds are split into batches that the pool's
+// threads steal from each other, and each batch is written out as soon as it
+// is done, so results come out in batch order rather than seed order.
+// the output is CSV, or fixed size little endian records when the file ends
+// in .bin: seed (long), then rooms, doors, dead ends, longest path and
+// repaired rooms (ints).
+// run with: java game.BatchGenerator [dungeons] [first seed] [rooms] [output]
+public class BatchGenerator {
+
+    // seeds per batch, enough that writing one out is cheap next to generating it
+    public static final int BATCH = 256;
+    // past this many rooms the longest path is estimated, see longestPath()
+    public static final int EXACT_ROOMS = 4096;
+    public static final String CSV_HEADER = "seed,rooms,doors,dead_ends,longest_path,repaired\n";
+    public static final int RECORD_SIZE = 28;
+    // the room through each side of a room: west, east, south and north, the
+    // order Dungeon.createDoors() takes them in
+    private static final int[] SIDE_DX = {-1, 1, 0, 0};
+    private static final int[] SIDE_DY = {0, 0, 1, -1};
+
+    // what one dungeon scored
+    public static class Score {
+        public long seed;
+        public int rooms;
+        // openings between two rooms, each counted once
+        public int doors;
+        // rooms with only one way in or out
+        public int deadEnds;
+        // the most rooms you'd walk through going between two rooms the shortest way, not counting the first
+        public int longestPath;
+        public int repaired;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        long dungeons = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long firstSeed = args.length > 1 ? Long.parseLong(args[1]) : Dungeon.defaultSeed();
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : Dungeon.ROOMS;
+        String output = args.length > 3 ? args[3] : "dungeons.csv";
+        boolean binary = output.endsWith(".bin");
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println(dungeons + " dungeons of " + rooms + " rooms from seed " + firstSeed
+                + " on " + cores + " thread(s) into " + output);
+        AtomicLong done = new AtomicLong();
+        long batches = (dungeons + BATCH - 1) / BATCH;
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)), 1 << 16)){
+            if (!binary){
+                out.write(CSV_HEADER.getBytes(StandardCharsets.US_ASCII));
+            }
+            // parallel streams run in the pool that started them
+            pool.submit(() -> LongStream.range(0, batches).parallel().forEach(batch -> {
+                long from = firstSeed + batch * BATCH;
+                long to = firstSeed + Math.min(dungeons, (batch + 1) * BATCH);
+                byte[] results = binary ? binaryBatch(from, to, rooms) : csvBatch(from, to, rooms);
+                write(out, results);
+                long total = done.addAndGet(to - from);
+                if (total / 100_000 != (total - (to - from)) / 100_000){
+                    System.out.println(total + " dungeons, " + perSecond(total, start) + "/s");
+                }
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(dungeons + " dungeons in " + elapsed / 1_000_000 + " ms, "
+                + perSecond(dungeons, start) + " dungeons/s");
+    }
+
+    private static long perSecond(long count, long start){
+        return (long) (count / ((System.nanoTime() - start) / 1e9));
+    }
+
+    // one batch at a time, so the lines of a batch stay together
+    private static void write(OutputStream out, byte[] results){
+        synchronized (out){
+            try {
+                out.write(results);
+            } catch (IOException exc){
+                throw new RuntimeException("Error writing results: " + exc.getMessage(), exc);
+            }
+        }
+    }
+
+    private static byte[] csvBatch(long from, long to, int rooms){
+        StringBuilder lines = new StringBuilder((int) (to - from) * 32);
+        for (long seed = from; seed < to; seed++){
+            Score score = score(new Dungeon(rooms, seed));
+            lines.append(score.seed).append(',')
+                    .append(score.rooms).append(',')
+                    .append(score.doors).append(',')
+                    .append(score.deadEnds).append(',')
+                    .append(score.longestPath).append(',')
+                    .append(score.repaired).append('\n');
+        }
+        return lines.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] binaryBatch(long from, long to, int rooms){
+        ByteBuffer records = ByteBuffer.allocate((int) (to - from) * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (long seed = from; seed < to; seed++){
+            Score score = score(new Dungeon(rooms, seed));
+            records.putLong(score.seed)
+                    .putInt(score.rooms)
+                    .putInt(score.doors)
+                    .putInt(score.deadEnds)
+                    .putInt(score.longestPath)
+                    .putInt(score.repaired);
+        }
+        return records.array();
+    }
+
+    public static Score score(Dungeon dungeon){
+        ArrayList<Room> rooms = dungeon.rooms;
+        int count = rooms.size();
+        IdentityHashMap<Room, Integer> indices = new IdentityHashMap<>(count);
+        for (int i = 0; i < count; i++){
+            indices.put(rooms.get(i), i);
+        }
+
+        // every room has a door on each side that has a room behind it, so the
+        // rooms and doors are a grid graph. neighbours[4 * i + side] is the
+        // index of the room through that side of room i, or -1
+        int[] neighbours = new int[4 * count];
+        Score score = new Score();
+        for (int i = 0; i < count; i++){
+            Room room = rooms.get(i);
+            int exits = 0;
+            for (int side = 0; side < 4; side++){
+                Room next = dungeon.getRoom(room.x + SIDE_DX[side], room.y + SIDE_DY[side]);
+                neighbours[4 * i + side] = next == null ? -1 : indices.get(next);
+                if (next != null){
+                    exits++;
+                }
+            }
+            score.doors += exits;
+            if (exits == 1){
+                score.deadEnds++;
+            }
+        }
+        score.seed = dungeon.seed;
+        score.rooms = count;
+        score.doors /= 2;
+        score.longestPath = longestPath(neighbours, count);
+        score.repaired = dungeon.repairedRooms;
+        return score;
+    }
+
+    // the longest of the shortest walks between any two rooms, counted in
+    // rooms. that is a breadth first search from every room, which grows with
+    // the square of the room count. above EXACT_ROOMS it searches twice instead,
+    // from the first room and then from the room furthest from it, which is
+    // exact for a dungeon without loops and a lower bound otherwise
+    static int longestPath(int[] neighbours, int count){
+        int[] distance = new int[count];
+        int[] queue = new int[count];
+        if (count > EXACT_ROOMS){
+            int furthest = furthest(neighbours, 0, distance, queue);
+            return distance[furthest(neighbours, furthest, distance, queue)];
+        }
+        int longest = 0;
+        for (int from = 0; from < count; from++){
+            longest = Math.max(longest, distance[furthest(neighbours, from, distance, queue)]);
+        }
+        return longest;
+    }
+
+    // fills distance with rooms walked from one room and returns a room furthest away
+    private static int furthest(int[] neighbours, int from, int[] distance, int[] queue){
+        Arrays.fill(distance, -1);
+        distance[from] = 0;
+        queue[0] = from;
+        int head = 0;
+        int tail = 1;
+        while (head < tail){
+            int room = queue[head++];
+            for (int side = 0; side < 4; side++){
+                int next = neighbours[4 * room + side];
+                if (next >= 0 && distance[next] == -1){
+                    distance[next] = distance[room] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        // breadth first, so the last room queued is as far away as any
+        return queue[tail - 1];
+    }
+}
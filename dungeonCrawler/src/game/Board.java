@@ -2,31 +2,65 @@ package game;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
 import javax.swing.*;
 
+import static game.Dungeon.*;
+
 public class Board extends JPanel implements ActionListener, KeyListener, MouseListener{
 
-    // controls the delay between each tick in ms
-    private final int DELAY = 25;
-    // controls the size of the board
+    // controls the size of a tile on screen
     public static final int TILE_SIZE = 60;
-    public static final int ROWS = 15;
-    public static final int COLUMNS = 25;
     // suppress serialization warning
-
-    public static final int ROOMS = 10;
     private static final long serialVersionUID = 490905409104883233L;
 
+    private static final Color WALL_COLOR = new Color(0, 0, 0);
+    private static final Color DOOR_COLOR = new Color(0, 200, 255);
+    private static final Color CHECKER_COLOR = new Color(214, 214, 214);
+    private static final Color WANDERING_COLOR = new Color(150, 90, 40);
+    private static final Color CHASING_COLOR = new Color(200, 30, 30);
+
     // keep a reference to the timer object that triggers actionPerformed() in
     // case we need access to it in another method
     private Timer timer;
+    // the game itself, the board only draws it and feeds it input
+    public final World world;
+    private final Simulation simulation;
+    private long lastTickTime;
     // objects that appear on the game board
     private Player player;
-    public ArrayList<Room> rooms;
-    public Room currentRoom;
+    // toggled with M, shows the rooms around the player and lets them walk to any of them
+    public final RoomMap map;
+    // every sprite, loaded once and shared by everything that draws it
+    public final Assets assets = new Assets();
+    // toggled with F3, frame rate and timings drawn over the room
+    private final DebugHud hud = new DebugHud();
+    private long hudPaintTime;
+    // pre-rendered room tiles so a frame is a few image copies instead of a rect per tile
+    private final BackgroundCache backgrounds = new BackgroundCache(this);
+    // which part of the room is on screen, rooms can be far bigger than the board
+    public final Camera camera = new Camera();
+    // darkens what the player can't see
+    private final FogOverlay fog = new FogOverlay();
+
+    // what the last requested repaint showed, so a tick only repaints what
+    // changed. the rectangles are in room pixels
+    private Room paintedRoom;
+    private int paintedX = -1;
+    private int paintedY = -1;
+    // the pixels the player was drawn at, which change every frame of a step
+    private final Rectangle paintedPlayer = new Rectangle();
+    // how far into the next tick the current frame is drawn, see Simulation.alpha()
+    private double alpha;
+    // the area the monsters of the painted room covered, so the next tick
+    // repaints where they were as well as where they are
+    private final Rectangle paintedMonsters = new Rectangle();
+    // pixels repainted in the current one second window, printed with -Ddungeon.repaintStats=true
+    private static final boolean REPAINT_STATS = Boolean.getBoolean("dungeon.repaintStats");
+    private long repaintedPixels;
+    private long repaintWindowStart = System.nanoTime();
 
 
 
@@ -36,188 +70,194 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
         // set the game board background color
         setBackground(new Color(232, 232, 232));
 
-        rooms = generateRooms(ROOMS);
-        createDoors(rooms);
-        currentRoom = rooms.get(0);
-
-        // initialize the game state
+        // initialize the game state, or carry on a saved one with -Ddungeon.load=FILE,
+        // or play a recorded one back with -Ddungeon.replay=FILE
+        Replay replay = openReplay();
+        world = replay != null ? replay.createWorld() : loadOrCreateWorld();
+        simulation = new Simulation(world);
+        simulation.replay = replay;
+        if (replay == null) {
+            Recording.fromProperty(world);
+        }
+        assets.loadAll();
         player = new Player(this);
+        map = new RoomMap(this);
 
-        // this timer will call the actionPerformed() method every DELAY ms
-        timer = new Timer(DELAY, this);
+        // this timer will call the actionPerformed() method every tick, the
+        // simulation catches up on however much time actually passed
+        timer = new Timer(Simulation.TICK_MILLIS, this);
+        lastTickTime = System.nanoTime();
         timer.start();
+        Metrics.startDumping();
     }
 
-    private void createDoors(ArrayList<Room> roomsTemp){
-        for (Room room : roomsTemp){
-            if (roomExists(roomsTemp, room.x - 1, room.y)){
-                getNode(0, (int) Math.floor(ROWS / 2), room).value = 2;
-                getNode(0, (int) Math.floor(ROWS / 2) + 1, room).value = 2;
-                getNode(0, (int) Math.floor(ROWS / 2) - 1, room).value = 2;
-            }
-            if (roomExists(roomsTemp, room.x + 1, room.y)){
-                getNode(COLUMNS - 1, (int) Math.floor(ROWS / 2), room).value = 2;
-                getNode(COLUMNS - 1, (int) Math.floor(ROWS / 2) + 1, room).value = 2;
-                getNode(COLUMNS - 1, (int) Math.floor(ROWS / 2) - 1, room).value = 2;
-            }
-            if (roomExists(roomsTemp, room.x, room.y + 1)){
-                getNode((int) Math.floor(COLUMNS / 2), ROWS - 1, room).value = 2;
-                getNode((int) Math.floor(COLUMNS / 2) + 1, ROWS - 1, room).value = 2;
-                getNode((int) Math.floor(COLUMNS / 2) - 1, ROWS - 1, room).value = 2;
-            }
-            if (roomExists(roomsTemp, room.x, room.y - 1)){
-                getNode((int) Math.floor(COLUMNS / 2), 0, room).value = 2;
-                getNode((int) Math.floor(COLUMNS / 2) + 1, 0, room).value = 2;
-                getNode((int) Math.floor(COLUMNS / 2) - 1, 0, room).value = 2;
+    private static World loadOrCreateWorld() {
+        String saved = System.getProperty("dungeon.load");
+        if (saved != null) {
+            try {
+                long start = System.nanoTime();
+                DungeonFile file = DungeonFile.open(Paths.get(saved));
+                World loaded = file.loadWorld(new Random(file.seed()));
+                System.out.println("loaded " + file.roomCount() + " rooms from " + saved + " in "
+                        + (System.nanoTime() - start) / 1000 + " us");
+                return loaded;
+            } catch (IOException exc) {
+                System.out.println("Error loading saved dungeon: " + exc.getMessage());
             }
         }
+        long seed = Dungeon.defaultSeed();
+        System.out.println("dungeon seed: " + seed);
+        return new World(Dungeon.create(seed), new Random(seed));
     }
 
-    public Node getNode(int x, int y, Room room){
-        return room.board[x][y];
+    private static Replay openReplay() {
+        String recorded = System.getProperty("dungeon.replay");
+        if (recorded == null) {
+            return null;
+        }
+        try {
+            Replay replay = Replay.open(Paths.get(recorded));
+            System.out.println("replaying " + recorded + ", dungeon seed: " + replay.seed);
+            return replay;
+        } catch (IOException exc) {
+            System.out.println("Error opening recording: " + exc.getMessage());
+            return null;
+        }
     }
 
+    // input is ignored while a recording plays back, it would only throw the replay off
+    private boolean replaying() {
+        return simulation.replay != null && !simulation.replay.finished;
+    }
 
-    private Boolean roomExists(ArrayList<Room> roomsTemp, int x, int y){
-        for (Room room : roomsTemp){
-            if (x == room.x && y == room.y){
-                return true;
-            }
+    // F5 writes the dungeon and the player's position to -Ddungeon.save=FILE, dungeon.sav by default
+    private void save() {
+        String target = System.getProperty("dungeon.save", "dungeon.sav");
+        try {
+            long start = System.nanoTime();
+            DungeonFile.save(Paths.get(target), world);
+            System.out.println("saved to " + target + " in " + (System.nanoTime() - start) / 1000 + " us");
+        } catch (IOException | IllegalArgumentException exc) {
+            System.out.println("Error saving dungeon: " + exc.getMessage());
         }
-
-        return false;
     }
 
-    public Room getRoom(int x, int y){
-        for (Room room : rooms){
-            if (x == room.x && y == room.y){
-                return room;
-            }
-        }
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        // this method is called by the timer every tick.
+        // use this space to update the state of your game or animation
+        // before the graphics are redrawn.
 
-        return null;
-    }
+        long now = System.nanoTime();
+        simulation.advance(now - lastTickTime);
+        lastTickTime = now;
+        alpha = simulation.alpha();
+        // a frame is one of these, however much of the board it ends up repainting
+        hud.frame(now);
+        Metrics.FRAMES.increment();
 
-    private ArrayList<Room> generateRooms(int roomsNum){
-        ArrayList<Room> roomsTemp = new ArrayList<>();
-        int previousX = 0, previousY = 0;
-        Random generator = new Random();
-        boolean moveX;
-        boolean moveNegative;
-
-        int i = 0;
-        while (i < roomsNum){
-            if (i == 0){
-                roomsTemp.add(new Room(createRoom(), previousX, previousY));
-                i++;
-            }
-            else{
-                moveX = generator.nextBoolean();
-                moveNegative = generator.nextBoolean();
-
-                if (moveX){
-                    if (moveNegative){
-                        if (roomExists(roomsTemp, previousX - 1, previousY)){
-                            previousX -= 1;
-                        }
-                        else{
-                            roomsTemp.add(new Room(createRoom(), previousX - 1, previousY));
-                            previousX -= 1;
-                            i++;
-                        }
-                    }
-                    else{
-                        if (roomExists(roomsTemp, previousX + 1, previousY)){
-                            previousX += 1;
-                        }
-                        else{
-                            roomsTemp.add(new Room(createRoom(), previousX + 1, previousY));
-                            previousX += 1;
-                            i++;
-                        }
-                    }
-                }
-                else{
-                    if (moveNegative){
-                        if (roomExists(roomsTemp, previousX , previousY - 1)){
-                            previousY -= 1;
-                        }
-                        else{
-                            roomsTemp.add(new Room(createRoom(), previousX, previousY - 1));
-                            previousY -= 1;
-                            i++;
-                        }
-                    }
-                    else{
-                        if (roomExists(roomsTemp, previousX , previousY + 1)){
-                            previousY += 1;
-                        }
-                        else{
-                            roomsTemp.add(new Room(createRoom(), previousX, previousY + 1));
-                            previousY += 1;
-                            i++;
-                        }
-                    }
-                }
+        // keep the player in the middle of the view
+        boolean scrolled = camera.follow(world.currentRoom, player.drawX() + TILE_SIZE / 2,
+                player.drawY() + TILE_SIZE / 2, getWidth(), getHeight());
+        // the fog only changes around the player, when they reach a new tile
+        Rectangle fogged = FogOverlay.ENABLED ? fog.update(world) : new Rectangle();
+
+        // calling repaint() will trigger paintComponent() to run again,
+        // which will refresh/redraw the graphics. only ask for the areas that
+        // changed since the last tick, and nothing at all when idle
+        if (world.currentRoom != paintedRoom || (scrolled && !map.open)
+                || (map.open && (world.playerX != paintedX || world.playerY != paintedY))){
+            repaint();
+            paintedRoom = world.currentRoom;
+        }
+        else if (!map.open){
+            Rectangle drawn = new Rectangle(player.drawX(), player.drawY(), TILE_SIZE, TILE_SIZE);
+            if (!drawn.equals(paintedPlayer)){
+                repaintRoomArea(paintedPlayer.isEmpty() ? drawn : drawn.union(paintedPlayer));
             }
         }
+        if (!map.open && !fogged.isEmpty()){
+            repaintRoomArea(fogged);
+        }
+        paintedX = world.playerX;
+        paintedY = world.playerY;
+        paintedPlayer.setBounds(player.drawX(), player.drawY(), TILE_SIZE, TILE_SIZE);
 
-        return roomsTemp;
-    }
-
+        Rectangle monsters = monsterBounds();
+        if (!map.open && !monsters.isEmpty()){
+            repaintRoomArea(paintedMonsters.isEmpty() ? monsters : monsters.union(paintedMonsters));
+        }
+        else if (!map.open && !paintedMonsters.isEmpty()){
+            repaintRoomArea(paintedMonsters);
+        }
+        paintedMonsters.setBounds(monsters);
 
-    private static Node[][] createRoom(){
-        Node[][] board = new Node[COLUMNS][ROWS];
-        ArrayList <Integer> options = new ArrayList<>();
-        options.add(0);
-        options.add(0);
-        options.add(0);
-        options.add(0);
-        options.add(1);
-        Random generator = new Random();
-
-        for (int i = 0; i < ROWS; i++){
-            for (int j = 0; j < COLUMNS; j++){
-                if (j == 0 || j == COLUMNS - 1 || i == 0 || i == ROWS - 1){
-                    board[j][i] = new Node(j, i, 1);
-                }
-                else {
-                    board[j][i] = new Node(j, i, options.get(generator.nextInt(5)));
-                }
-            }
+        // the hud's numbers are refreshed once a second
+        if (hud.visible && now - hudPaintTime >= 1_000_000_000L) {
+            repaint(hud.bounds());
+            hudPaintTime = now;
         }
 
-        return board;
+        if (REPAINT_STATS && System.nanoTime() - repaintWindowStart >= 1_000_000_000L){
+            System.out.println("repaint: " + repaintedPixels + " px/s");
+            repaintedPixels = 0;
+            repaintWindowStart = System.nanoTime();
+        }
     }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        // this method is called by the timer every DELAY ms.
-        // use this space to update the state of your game or animation
-        // before the graphics are redrawn.
-
-        // prevent the player from disappearing off the board
-        player.tick();
+    double alpha() {
+        return alpha;
+    }
 
-        // calling repaint() will trigger paintComponent() to run again,
-        // which will refresh/redraw the graphics.
-        repaint();
+    // repaints an area given in room pixels, wherever the camera puts it on the board
+    private void repaintRoomArea(Rectangle area) {
+        repaint(area.x - camera.x, area.y - camera.y, area.width, area.height);
     }
 
     @Override
     public void paintComponent(Graphics g) {
+        Metrics.PaintEvent event = new Metrics.PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+
         super.paintComponent(g);
+        Rectangle clip = g.getClipBounds();
+        long pixels = clip != null ? (long) clip.width * clip.height : (long) getWidth() * getHeight();
+        repaintedPixels += pixels;
         // when calling g.drawImage() we can use "this" for the ImageObserver
         // because Component implements the ImageObserver interface, and JPanel
         // extends from Component. So "this" Board instance, as a Component, can
         // react to imageUpdate() events triggered by g.drawImage()
 
         // draw our graphics.
-        drawBackground(g, currentRoom);
-        player.draw(g, this);
+        if (map.open) {
+            map.draw(g);
+        }
+        else {
+            // draw in room pixels, and only what is on screen and being repainted
+            g.translate(-camera.x, -camera.y);
+            Rectangle area = g.getClipBounds();
+            if (area == null) {
+                area = new Rectangle(camera.x, camera.y, getWidth(), getHeight());
+            }
+            backgrounds.draw(g, world.currentRoom, area);
+            drawMonsters(g, area);
+            if (FogOverlay.ENABLED) {
+                fog.draw(g, world.currentRoom, this);
+            }
+            player.draw(g, this);
+            g.translate(camera.x, camera.y);
+        }
+        if (hud.visible) {
+            hud.draw(g, world);
+        }
 
         // this smooths out animations on some systems
         Toolkit.getDefaultToolkit().sync();
+
+        Metrics.PAINT.record(System.nanoTime() - start);
+        event.pixels = pixels;
+        event.commit();
     }
 
     @Override
@@ -228,7 +268,29 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
     @Override
     public void keyPressed(KeyEvent e) {
         // react to key down events
-        player.keyPressed(e);
+        if (e.getKeyCode() == KeyEvent.VK_M) {
+            map.open = !map.open;
+            repaint();
+        }
+        else if (e.getKeyCode() == KeyEvent.VK_F3) {
+            hud.visible = !hud.visible;
+            repaint();
+        }
+        else if (e.getKeyCode() == KeyEvent.VK_F5) {
+            save();
+        }
+        else if (replaying()) {
+            return;
+        }
+        else if (e.getKeyCode() == KeyEvent.VK_J) {
+            world.setSearchMode(world.paths.mode().next());
+            if (hud.visible) {
+                repaint(hud.bounds());
+            }
+        }
+        else {
+            player.keyPressed(e);
+        }
     }
 
     @Override
@@ -236,20 +298,87 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
         // react to key up events
     }
 
-    private void drawBackground(Graphics g, Room room) {
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLUMNS; col++) {
+    // only the monsters in the player's room and inside the area (in room
+    // pixels) are drawn, the rest are still ticked but there is nothing to see of them
+    private void drawMonsters(Graphics g, Rectangle area) {
+        Entities entities = world.entities;
+        int id = entities.idOf(world.currentRoom);
+        // a monster sprite, if an atlas supplied one
+        Image sprite = assets.get("monster");
+        for (int i = 0; i < entities.count; i++) {
+            if (entities.room[i] != id || !area.intersects(entities.x[i] * TILE_SIZE, entities.y[i] * TILE_SIZE,
+                    TILE_SIZE, TILE_SIZE) || !inSight(entities.x[i], entities.y[i])) {
+                continue;
+            }
+            if (sprite != null) {
+                g.drawImage(sprite, entities.x[i] * TILE_SIZE, entities.y[i] * TILE_SIZE, this);
+            }
+            else {
+                g.setColor(entities.state[i] == Entities.CHASING ? CHASING_COLOR : WANDERING_COLOR);
+                g.fillOval(
+                        entities.x[i] * TILE_SIZE + TILE_SIZE / 4,
+                        entities.y[i] * TILE_SIZE + TILE_SIZE / 4,
+                        TILE_SIZE / 2,
+                        TILE_SIZE / 2
+                );
+            }
+        }
+    }
+
+    // monsters in the fog aren't drawn
+    private boolean inSight(int x, int y) {
+        return !FogOverlay.ENABLED || (world.sight.room() == world.currentRoom && world.sight.isVisible(x, y));
+    }
+
+    // the room pixels covered by the monsters on screen, empty if there are none
+    private Rectangle monsterBounds() {
+        Entities entities = world.entities;
+        int id = entities.idOf(world.currentRoom);
+        int firstCol = camera.x / TILE_SIZE;
+        int firstRow = camera.y / TILE_SIZE;
+        int lastCol = (camera.x + getWidth() - 1) / TILE_SIZE;
+        int lastRow = (camera.y + getHeight() - 1) / TILE_SIZE;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        for (int i = 0; i < entities.count; i++) {
+            if (entities.room[i] == id && entities.x[i] >= firstCol && entities.x[i] <= lastCol
+                    && entities.y[i] >= firstRow && entities.y[i] <= lastRow && inSight(entities.x[i], entities.y[i])) {
+                minX = Math.min(minX, entities.x[i]);
+                minY = Math.min(minY, entities.y[i]);
+                maxX = Math.max(maxX, entities.x[i]);
+                maxY = Math.max(maxY, entities.y[i]);
+            }
+        }
+        if (maxX < 0) {
+            return new Rectangle();
+        }
+        return new Rectangle(minX * TILE_SIZE, minY * TILE_SIZE,
+                (maxX - minX + 1) * TILE_SIZE, (maxY - minY + 1) * TILE_SIZE);
+    }
+
+    // paints every tile of the room
+    static void drawBackground(Graphics g, Room room) {
+        drawBackground(g, room, 0, 0, room.width, room.height);
+    }
+
+    // paints the tiles from firstCol, firstRow up to but not including
+    // lastCol, lastRow, only used to fill the cached background chunks
+    static void drawBackground(Graphics g, Room room, int firstCol, int firstRow, int lastCol, int lastRow) {
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = firstCol; col < lastCol; col++) {
                 // only color every other tile
-                if(room.board[col][row].value ==1){
-                    g.setColor(new Color(0, 0, 0));
+                if(room.get(col, row) ==1){
+                    g.setColor(WALL_COLOR);
                     g.fillRect(
                             col * TILE_SIZE,
                             row * TILE_SIZE,
                             TILE_SIZE,
                             TILE_SIZE
                     );
-                }else if(room.board[col][row].value ==2){
-                    g.setColor(new Color(0, 200, 255));
+                }else if(room.get(col, row) ==2){
+                    g.setColor(DOOR_COLOR);
                     g.fillRect(
                             col * TILE_SIZE,
                             row * TILE_SIZE,
@@ -259,7 +388,7 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
                 }
                 else if ((row + col) % 2 == 1) {
                     // draw a square tile at the current row/column position
-                    g.setColor(new Color(214, 214, 214));
+                    g.setColor(CHECKER_COLOR);
                     g.fillRect(
                             col * TILE_SIZE,
                             row * TILE_SIZE,
@@ -280,7 +409,9 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
 
     @Override
     public void mousePressed(MouseEvent e) {
-        player.mousePressed(e);
+        if (!replaying()) {
+            player.mousePressed(e);
+        }
     }
 
     @Override
@@ -297,117 +428,4 @@ public class Board extends JPanel implements ActionListener, KeyListener, MouseL
     public void mouseExited(MouseEvent e) {
 
     }
-
-    private int calculateDistance(Node node1, Node node2){
-        int xDistance = Math.abs(node1.x - node2.x);
-        int yDistance = Math.abs(node1.y - node2.y);
-        int remaining = Math.abs(xDistance - yDistance);
-        return remaining;
-    }
-
-    private ArrayList<Node> getPath(Node end){
-        ArrayList<Node> path = new ArrayList<>();
-        path.add(end);
-        Node current = end;
-
-        while (current.cameFrom != null){
-            path.add(current.cameFrom);
-            current = current.cameFrom;
-        }
-
-        Collections.reverse(path);
-        return path;
-    }
-
-    public ArrayList<Node> pathfinder(Room room, int playerX, int playerY, int mouseX, int mouseY){
-        ArrayList<Node> open = new ArrayList<>();
-        ArrayList<Node> closed = new ArrayList<>();
-
-        // Reset g, h, and f values for all nodes
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLUMNS; col++) {
-                room.board[col][row].g = Integer.MAX_VALUE;
-                room.board[col][row].h = 0;
-                room.board[col][row].f = 0;
-                room.board[col][row].cameFrom = null;
-                room.board[col][row].inOpen = false;
-                room.board[col][row].inClosed = false;
-                room.board[col][row].start = false;
-                room.board[col][row].end = false;
-            }
-        }
-
-        // Create the start node and assign g, h, and f value
-        Node startNode = getNode(playerX, playerY, room);
-        startNode.start = true;
-        startNode.g = 0;
-        startNode.h = calculateDistance(startNode, getNode(mouseX, mouseY, room));
-        startNode.f = startNode.g + startNode.h;
-
-        getNode(mouseX, mouseY, room).end = true;
-
-        // Append start node to the open list
-        open.add(startNode);
-
-        while (!open.isEmpty()){
-            // Get node with the lowest f score in the open list
-            Node current = open.get(0);
-            for (int i = 1; i < open.size(); i++){
-                Node node = open.get(i);
-                if (node.f < current.f){
-                    current = node;
-                }
-            }
-
-            // Remove current from open list
-            open.remove(current);
-
-            // Add current to closed
-            closed.add(current);
-
-            // Check if current is the end node
-            if (current.end){
-                return getPath(current);
-            }
-
-            // Get neighbours list of the current node
-            ArrayList<Node> neighbours = getNeighbours(room, current, closed);
-
-            // For each neighbour of the current node
-            for (Node neighbour : neighbours){
-                int tentativeG = current.g + calculateDistance(current, neighbour);
-                if (tentativeG < neighbour.g){
-                    neighbour.cameFrom = current;
-                    neighbour.g = tentativeG;
-                    neighbour.h = calculateDistance(neighbour, getNode(mouseX, mouseY, room));
-                    neighbour.f = neighbour.g + neighbour.h;
-
-                    if (!open.contains(neighbour)){
-                        open.add(neighbour);
-                    }
-                }
-            }
-        }
-
-        return null; // No path found
-    }
-
-    private ArrayList<Node> getNeighbours(Room room, Node node, ArrayList<Node> closed){
-        ArrayList<Node> neighbours = new ArrayList<>();
-
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // Only orthogonal moves
-
-        for (int[] dir : directions){
-            int row = node.x + dir[0];
-            int col = node.y + dir[1];
-            if ((0 <= row && row < COLUMNS) && (0 <= col && col < ROWS)){
-                Node neighbour = getNode(row, col, room);
-                if (!closed.contains(neighbour) && (neighbour.value == 0 || neighbour.value == 2)){
-                    neighbours.add(neighbour);
-                }
-            }
-        }
-
-        return neighbours;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package game;
+
+import static game.Board.*;
+
+// the part of the room the board shows, as the room pixel at the board's top
+// left corner. it keeps the player in the middle of the view and stops at the
+// edges of the room, so a room no bigger than the board doesn't scroll at all
+public class Camera {
+
+    public int x;
+    public int y;
+
+    // centres the view on a point of the room, in room pixels. returns whether the view moved
+    public boolean follow(Room room, int centreX, int centreY, int viewWidth, int viewHeight){
+        int newX = clamp(centreX - viewWidth / 2, room.width * TILE_SIZE - viewWidth);
+        int newY = clamp(centreY - viewHeight / 2, room.height * TILE_SIZE - viewHeight);
+        boolean moved = newX != x || newY != y;
+        x = newX;
+        y = newY;
+        return moved;
+    }
+
+    private static int clamp(int position, int max){
+        return Math.max(0, Math.min(max, position));
+    }
+
+    // the tile under a point of the board
+    public int tileX(int boardX){
+        return Math.floorDiv(boardX + x, TILE_SIZE);
+    }
+
+    public int tileY(int boardY){
+        return Math.floorDiv(boardY + y, TILE_SIZE);
+    }
+}
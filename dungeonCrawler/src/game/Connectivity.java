@@ -0,0 +1,261 @@
+package game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// which walkable tiles of a room can reach which. a room's tiles are split
+// into connected areas with a union-find over the grid, each tile joined to
+// the walkable tiles left of and above it, in one pass and without a queue.
+// generation uses it to make sure every door of a room leads to every other,
+// with a flood fill over rows packed into longs for rooms that fit in one
+public final class Connectivity {
+
+    // rooms up to this wide are checked a row of tiles at a time, one bit per
+    // tile. one bit short of a long, so a carry off the top of a row has
+    // somewhere to go
+    public static final int BITSET_WIDTH = 63;
+
+    // scratch space for checking rooms during generation, one per thread since rooms are filled in parallel
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[0]);
+    private static final ThreadLocal<long[]> ROWS_SCRATCH = ThreadLocal.withInitial(() -> new long[0]);
+    // reads eight tiles at once out of a room's byte array
+    private static final VarHandle EIGHT_TILES = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Connectivity(){
+    }
+
+    // fills labels with the connected area of every tile, numbered from 0 in
+    // the order the areas are first met row by row, and -1 for walls. returns
+    // how many areas there are
+    public static int label(Room room, int[] labels){
+        byte[] tiles = room.tiles;
+        int width = room.width;
+        int size = tiles.length;
+
+        // every walkable tile points at a tile before it in its area, or at
+        // itself if it is the first one. joining two areas always points the
+        // later first tile at the earlier one
+        for (int i = 0, x = 0; i < size; i++, x = x + 1 == width ? 0 : x + 1){
+            if (tiles[i] != 0 && tiles[i] != 2){
+                labels[i] = -1;
+                continue;
+            }
+            labels[i] = i;
+            if (x > 0 && labels[i - 1] >= 0){
+                union(labels, i, i - 1);
+            }
+            if (i >= width && labels[i - width] >= 0){
+                union(labels, i, i - width);
+            }
+        }
+
+        // then swap the pointers for area numbers. a tile's pointer is always
+        // to an earlier tile, which already has its number by now
+        int count = 0;
+        for (int i = 0; i < size; i++){
+            if (labels[i] == i){
+                labels[i] = count++;
+            }
+            else if (labels[i] >= 0){
+                labels[i] = labels[labels[i]];
+            }
+        }
+        return count;
+    }
+
+    private static int find(int[] parents, int tile){
+        while (parents[tile] != tile){
+            // halve the path on the way up
+            parents[tile] = parents[parents[tile]];
+            tile = parents[tile];
+        }
+        return tile;
+    }
+
+    private static void union(int[] parents, int a, int b){
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA < rootB){
+            parents[rootB] = rootA;
+        }
+        else if (rootB < rootA){
+            parents[rootA] = rootB;
+        }
+    }
+
+    // checks the doors in the middle of each side all lead to one another, and
+    // if they don't, digs a straight corridor from each door to the middle of
+    // the room. the corridors only need the room's own tiles, so a room comes
+    // out the same whoever repairs it. returns whether it had to dig
+    public static boolean connectDoors(Room room){
+        int middleX = room.width / 2;
+        int middleY = room.height / 2;
+        int width = room.width;
+        int[] doors = {
+                middleY * width,
+                middleY * width + width - 1,
+                middleX,
+                (room.height - 1) * width + middleX
+        };
+        boolean connected = room.width <= BITSET_WIDTH ? floodConnects(room, doors) : labelsConnect(room, doors);
+        if (connected){
+            return false;
+        }
+
+        if (room.tiles[doors[0]] == 2){
+            dig(room, 1, middleY, middleX, middleY);
+        }
+        if (room.tiles[doors[1]] == 2){
+            dig(room, middleX, middleY, room.width - 2, middleY);
+        }
+        if (room.tiles[doors[2]] == 2){
+            dig(room, middleX, 1, middleX, middleY);
+        }
+        if (room.tiles[doors[3]] == 2){
+            dig(room, middleX, middleY, middleX, room.height - 2);
+        }
+        return true;
+    }
+
+    // whether all the doors among the given tiles are in one connected area, from the labels
+    private static boolean labelsConnect(Room room, int[] doors){
+        int[] labels = SCRATCH.get();
+        if (labels.length < room.tiles.length){
+            labels = new int[room.tiles.length];
+            SCRATCH.set(labels);
+        }
+        label(room, labels);
+
+        int area = -1;
+        for (int door : doors){
+            if (room.tiles[door] != 2){
+                continue;
+            }
+            if (area == -1){
+                area = labels[door];
+            }
+            else if (labels[door] != area){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the same as labelsConnect(), by flooding out from the first door a row
+    // at a time: a row takes in whatever the rows above and below reach, then
+    // spreads along its own runs of floor in a few long operations. sweeping
+    // down and back up stops as soon as every door has been reached, which is
+    // usually the first sweep or two
+    private static boolean floodConnects(Room room, int[] doors){
+        int width = room.width;
+        int height = room.height;
+        long[] rows = ROWS_SCRATCH.get();
+        if (rows.length < 2 * height){
+            rows = new long[2 * height];
+            ROWS_SCRATCH.set(rows);
+        }
+        // walkable tiles in rows[y], the tiles reached so far in rows[height + y]
+        byte[] tiles = room.tiles;
+        int first = -1;
+        for (int y = 0, row = 0; y < height; y++, row += width){
+            rows[y] = walkableBits(tiles, row, width);
+            rows[height + y] = 0;
+        }
+        for (int door : doors){
+            if (tiles[door] == 2 && first == -1){
+                first = door;
+                rows[height + door / width] = 1L << (door % width);
+            }
+        }
+        if (first == -1){
+            return true;
+        }
+
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            for (int y = 0; y < height; y++){
+                changed |= spread(rows, height, y);
+            }
+            if (reachesAll(rows, room, doors)){
+                return true;
+            }
+            for (int y = height - 1; y >= 0; y--){
+                changed |= spread(rows, height, y);
+            }
+            if (reachesAll(rows, room, doors)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // one bit per tile of a row, set where it is walkable. floor and doors are
+    // the even tile values, so it is the low bit of each byte flipped. eight
+    // tiles are read as one long and the multiply gathers their low bits into
+    // its top byte, rather than branching on each tile, which with a fifth of
+    // them walls at random mispredicts a lot
+    private static long walkableBits(byte[] tiles, int row, int width){
+        long walkable = 0;
+        int x = 0;
+        for (; x + 8 <= width && row + x + 8 <= tiles.length; x += 8){
+            long eight = (long) EIGHT_TILES.get(tiles, row + x);
+            walkable |= ((~eight & 0x0101010101010101L) * 0x0102040810204080L) >>> 56 << x;
+        }
+        for (; x < width; x++){
+            walkable |= (long) (~tiles[row + x] & 1) << x;
+        }
+        return walkable;
+    }
+
+    private static boolean reachesAll(long[] rows, Room room, int[] doors){
+        for (int door : doors){
+            if (room.tiles[door] == 2 && (rows[room.height + door / room.width] & 1L << (door % room.width)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean spread(long[] rows, int height, int y){
+        long walkable = rows[y];
+        long reached = rows[height + y];
+        long grown = reached;
+        if (y > 0){
+            grown |= rows[height + y - 1];
+        }
+        if (y < height - 1){
+            grown |= rows[height + y + 1];
+        }
+        grown = fillRuns(grown & walkable, walkable);
+        rows[height + y] = grown;
+        return grown != reached;
+    }
+
+    // every run of set bits in walkable that has a bit of seeds in it. adding
+    // the seeds to the runs carries each one up to the top of its run in one
+    // go. down is done by doubling: spread 1 bit, then 2 where both are
+    // walkable, then 4 and so on, which covers a whole long in six steps
+    // without a branch to mispredict
+    private static long fillRuns(long seeds, long walkable){
+        long filled = (((walkable + seeds) ^ walkable) & walkable) | seeds;
+        long open = walkable;
+        for (int shift = 1; shift < 64; shift <<= 1){
+            filled |= (filled >>> shift) & open;
+            open &= open >>> shift;
+        }
+        return filled;
+    }
+
+    // turns the walls along a straight line of tiles into floor
+    private static void dig(Room room, int fromX, int fromY, int toX, int toY){
+        for (int y = fromY; y <= toY; y++){
+            for (int x = fromX; x <= toX; x++){
+                if (room.get(x, y) == 1){
+                    room.set(x, y, 0);
+                }
+            }
+        }
+    }
+}
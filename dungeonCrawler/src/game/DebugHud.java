@@ -0,0 +1,76 @@
+package game;
+
+import java.awt.*;
+import java.util.Arrays;
+
+// the F3 overlay: frames per second and p99 frame time over the last second
+// or so, the p99 of the tick, paint and path timings since startup, and how
+// the pathfinder thread did on the last click and the planner on the last
+// walk picked on the map
+public class DebugHud {
+
+    public static final int WIDTH = 250;
+    public static final int HEIGHT = 160;
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color TEXT = new Color(230, 230, 230);
+
+    public boolean visible;
+
+    // when the last frames started, oldest overwritten first
+    private final long[] frameTimes = new long[256];
+    private int frames;
+
+    // called at the start of every frame of the board's timer. not every
+    // paint: a frame can repaint several dirty areas or none at all
+    public void frame(long now){
+        frameTimes[frames % frameTimes.length] = now;
+        frames++;
+    }
+
+    public Rectangle bounds(){
+        return new Rectangle(8, 8, WIDTH, HEIGHT);
+    }
+
+    public void draw(Graphics g, World world){
+        long now = System.nanoTime();
+        // intervals between the frames of the last second
+        int kept = Math.min(frames, frameTimes.length);
+        long[] recent = new long[kept];
+        int count = 0;
+        for (int i = 0; i < kept; i++){
+            long time = frameTimes[Math.floorMod(frames - 1 - i, frameTimes.length)];
+            if (now - time > 1_000_000_000L){
+                break;
+            }
+            recent[count++] = time;
+        }
+        long[] intervals = new long[Math.max(0, count - 1)];
+        for (int i = 0; i < intervals.length; i++){
+            intervals[i] = recent[i] - recent[i + 1];
+        }
+        Arrays.sort(intervals);
+        long p99 = intervals.length == 0 ? 0 : intervals[(int) Math.ceil(0.99 * intervals.length) - 1];
+
+        Rectangle box = bounds();
+        g.setColor(BACKGROUND);
+        g.fillRect(box.x, box.y, box.width, box.height);
+        g.setColor(TEXT);
+        int line = box.y + 16;
+        g.drawString(String.format("fps %d   frame p99 %.1f ms", count, p99 / 1e6), box.x + 8, line);
+        g.drawString(String.format("tick p99 %.1f us", Metrics.TICK.percentile(0.99) / 1000.0), box.x + 8, line += 16);
+        g.drawString(String.format("paint p99 %.1f us", Metrics.PAINT.percentile(0.99) / 1000.0), box.x + 8, line += 16);
+        g.drawString(String.format("path p99 %.1f us", Metrics.PATH.percentile(0.99) / 1000.0), box.x + 8, line += 16);
+        // the ticks run on this thread too, so these are as the last tick left them
+        AsyncPaths clicks = world.asyncPaths;
+        g.drawString("search " + world.paths.mode().name + ", " + clicks.cancelled + " cancelled",
+                box.x + 8, line += 16);
+        g.drawString("last click " + clicks.lastExpanded + " nodes, " + clicks.lastNanos / 1000 + " us",
+                box.x + 8, line += 16);
+        g.drawString("last route " + world.planner.roomsSearched + " rooms, " + world.planner.nanos / 1000 + " us",
+                box.x + 8, line += 16);
+        g.drawString("monsters " + world.entities.count + ", " + world.entities.nanos / 1000 + " us",
+                box.x + 8, line += 16);
+        g.drawString("room " + world.currentRoom.x + "," + world.currentRoom.y
+                + "  tile " + world.playerX + "," + world.playerY, box.x + 8, line += 16);
+    }
+}
@@ -0,0 +1,238 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// the rooms of a dungeon and how they are generated. nothing in here touches
+// AWT or Swing so it can be built without a display
+public class Dungeon implements RoomSource {
+
+    // controls the size of a room in tiles, which exactly fills the board
+    public static final int ROWS = 15;
+    public static final int COLUMNS = 25;
+    // the size new rooms are generated at, override with -Ddungeon.roomWidth=N
+    // and -Ddungeon.roomHeight=N for rooms bigger than the window
+    public static final int ROOM_WIDTH = Integer.getInteger("dungeon.roomWidth", COLUMNS);
+    public static final int ROOM_HEIGHT = Integer.getInteger("dungeon.roomHeight", ROWS);
+    // how many rooms to generate, override with -Ddungeon.rooms=N for bigger dungeons
+    public static final int ROOMS = Integer.getInteger("dungeon.rooms", 10);
+    // below this many rooms the tiles are filled on the calling thread, it isn't
+    // worth waking the pool up for
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    // everything about the dungeon follows from this, the same seed and room
+    // count always give the same dungeon
+    public final long seed;
+    public final ArrayList<Room> rooms;
+    // looks rooms up by their coordinates
+    public final RoomIndex roomIndex;
+    // rooms whose doors were walled off from each other and had corridors dug
+    public final int repairedRooms;
+
+    public Dungeon(int roomsNum, long seedIn){
+        this(roomsNum, seedIn, ROOM_WIDTH, ROOM_HEIGHT);
+    }
+
+    public Dungeon(int roomsNum, long seedIn, int roomWidth, int roomHeight){
+        Metrics.GenerationEvent event = new Metrics.GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        seed = seedIn;
+        roomIndex = new RoomIndex(roomsNum);
+        // lay out where the rooms go first, that part is one random walk and
+        // has to run in order. every room after that only depends on its own
+        // random stream, so their tiles and doors are filled in parallel
+        rooms = generateRooms(roomsNum, roomIndex, new SplittableRandom(seed), roomWidth, roomHeight);
+        IntStream fill = IntStream.range(0, rooms.size());
+        if (rooms.size() >= PARALLEL_THRESHOLD){
+            fill = fill.parallel();
+        }
+        LongAdder repaired = new LongAdder();
+        fill.forEach(i -> {
+            Room room = rooms.get(i);
+            createRoom(room, roomRandom(seed, room.x, room.y));
+            createDoors(room, roomIndex);
+            if (Connectivity.connectDoors(room)){
+                repaired.increment();
+            }
+        });
+        repairedRooms = repaired.intValue();
+        Metrics.GENERATION.record(System.nanoTime() - start);
+        Metrics.ROOMS_GENERATED.add(rooms.size());
+        Metrics.ROOMS_REPAIRED.add(repairedRooms);
+        event.rooms = rooms.size();
+        event.repaired = repairedRooms;
+        event.commit();
+    }
+
+    // the seed from -Ddungeon.seed=N, or a fresh one when it isn't set
+    public static long defaultSeed(){
+        return Long.getLong("dungeon.seed", System.nanoTime());
+    }
+
+    // a dungeon of ROOMS rooms, or an endless streaming one with -Ddungeon.streaming=true
+    public static RoomSource create(long seed){
+        if (Boolean.getBoolean("dungeon.streaming")){
+            return new StreamingDungeon(seed);
+        }
+        return new Dungeon(ROOMS, seed);
+    }
+
+    // every room gets its own stream split off the dungeon seed by its
+    // coordinates, so its tiles come out the same whichever thread fills it
+    static SplittableRandom roomRandom(long seed, int x, int y){
+        return new SplittableRandom(seed ^ RoomIndex.key(x, y) * 0x9e3779b97f4a7c15L);
+    }
+
+    @Override
+    public long seed(){
+        return seed;
+    }
+
+    @Override
+    public Room startRoom(){
+        return rooms.get(0);
+    }
+
+    @Override
+    public Room getRoom(int x, int y){
+        return roomIndex.get(x, y);
+    }
+
+    @Override
+    public int loadedRooms(){
+        return rooms.size();
+    }
+
+    public boolean roomExists(int x, int y){
+        return roomIndex.contains(x, y);
+    }
+
+    static void createDoors(Room room, RoomIndex index){
+        createDoors(room, index.contains(room.x - 1, room.y), index.contains(room.x + 1, room.y),
+                index.contains(room.x, room.y + 1), index.contains(room.x, room.y - 1));
+    }
+
+    // punches a three tile door in the middle of each side that leads somewhere
+    static void createDoors(Room room, boolean west, boolean east, boolean south, boolean north){
+        int middleX = room.width / 2;
+        int middleY = room.height / 2;
+        if (west){
+            room.set(0, middleY, 2);
+            room.set(0, middleY + 1, 2);
+            room.set(0, middleY - 1, 2);
+        }
+        if (east){
+            room.set(room.width - 1, middleY, 2);
+            room.set(room.width - 1, middleY + 1, 2);
+            room.set(room.width - 1, middleY - 1, 2);
+        }
+        if (south){
+            room.set(middleX, room.height - 1, 2);
+            room.set(middleX + 1, room.height - 1, 2);
+            room.set(middleX - 1, room.height - 1, 2);
+        }
+        if (north){
+            room.set(middleX, 0, 2);
+            room.set(middleX + 1, 0, 2);
+            room.set(middleX - 1, 0, 2);
+        }
+    }
+
+    // places the rooms with a random walk, leaving their tiles empty
+    static ArrayList<Room> generateRooms(int roomsNum, RoomIndex index, SplittableRandom generator){
+        return generateRooms(roomsNum, index, generator, ROOM_WIDTH, ROOM_HEIGHT);
+    }
+
+    static ArrayList<Room> generateRooms(int roomsNum, RoomIndex index, SplittableRandom generator,
+                                         int width, int height){
+        ArrayList<Room> roomsTemp = new ArrayList<>(roomsNum);
+        int previousX = 0, previousY = 0;
+        boolean moveX;
+        boolean moveNegative;
+
+        int i = 0;
+        while (i < roomsNum){
+            if (i == 0){
+                addRoom(roomsTemp, index, new Room(new byte[width * height], previousX, previousY, width, height));
+                i++;
+            }
+            else{
+                moveX = generator.nextBoolean();
+                moveNegative = generator.nextBoolean();
+
+                if (moveX){
+                    if (moveNegative){
+                        if (index.contains(previousX - 1, previousY)){
+                            previousX -= 1;
+                        }
+                        else{
+                            addRoom(roomsTemp, index, new Room(new byte[width * height], previousX - 1, previousY, width, height));
+                            previousX -= 1;
+                            i++;
+                        }
+                    }
+                    else{
+                        if (index.contains(previousX + 1, previousY)){
+                            previousX += 1;
+                        }
+                        else{
+                            addRoom(roomsTemp, index, new Room(new byte[width * height], previousX + 1, previousY, width, height));
+                            previousX += 1;
+                            i++;
+                        }
+                    }
+                }
+                else{
+                    if (moveNegative){
+                        if (index.contains(previousX , previousY - 1)){
+                            previousY -= 1;
+                        }
+                        else{
+                            addRoom(roomsTemp, index, new Room(new byte[width * height], previousX, previousY - 1, width, height));
+                            previousY -= 1;
+                            i++;
+                        }
+                    }
+                    else{
+                        if (index.contains(previousX , previousY + 1)){
+                            previousY += 1;
+                        }
+                        else{
+                            addRoom(roomsTemp, index, new Room(new byte[width * height], previousX, previousY + 1, width, height));
+                            previousY += 1;
+                            i++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return roomsTemp;
+    }
+
+    private static void addRoom(ArrayList<Room> roomsTemp, RoomIndex index, Room room){
+        roomsTemp.add(room);
+        index.put(room);
+    }
+
+
+    // fills in the outer walls and scatters walls over the inside, one in five tiles on average
+    static void createRoom(Room room, SplittableRandom generator){
+        byte[] tiles = room.tiles;
+        int width = room.width;
+        int height = room.height;
+        for (int i = 0; i < height; i++){
+            for (int j = 0; j < width; j++){
+                if (j == 0 || j == width - 1 || i == 0 || i == height - 1){
+                    tiles[i * width + j] = 1;
+                }
+                else {
+                    tiles[i * width + j] = (byte) (generator.nextInt(5) == 4 ? 1 : 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+// a dungeon saved to disk, and read back through a memory mapping of the file.
+// opening one only maps the file and checks the header, a room's tiles are
+// unpacked the first time it is asked for, so a dungeon of any size opens in
+// about the same time and any one room can be read without touching the rest.
+//
+// the file, little endian throughout:
+//   header    magic "DNGN", format version, seed, room count, start room x/y,
+//             the player's room x/y and tile x/y, ticks, and where the index
+//             and the tiles start
+//   index     one entry per room sorted by RoomIndex.key: x, y, width, height
+//             and the offset of its tiles, so a room is found by binary search
+//   tiles     every room's tiles packed four to a byte, two bits each
+public class DungeonFile implements RoomSource {
+
+    public static final int MAGIC = 0x4e474e44; // "DNGN" read little endian
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 72;
+    private static final int ENTRY_SIZE = 24;
+    // a room's width and height are stored as unsigned shorts
+    private static final int MAX_SIDE = 0xffff;
+    // the header fields, as byte offsets
+    private static final int SEED = 8;
+    private static final int ROOM_COUNT = 16;
+    private static final int START_X = 20;
+    private static final int START_Y = 24;
+    private static final int PLAYER_ROOM_X = 28;
+    private static final int PLAYER_ROOM_Y = 32;
+    private static final int PLAYER_X = 36;
+    private static final int PLAYER_Y = 40;
+    private static final int TICKS = 48;
+    private static final int INDEX_OFFSET = 56;
+    private static final int TILES_OFFSET = 64;
+
+    public final Path path;
+    private final MappedByteBuffer buffer;
+    private final long seed;
+    private final int roomCount;
+    private final int indexOffset;
+    // rooms unpacked so far, the same Room comes back every time it is asked for
+    private final RoomIndex unpacked = new RoomIndex();
+
+    private DungeonFile(Path pathIn, MappedByteBuffer bufferIn) throws IOException {
+        path = pathIn;
+        buffer = bufferIn;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC){
+            throw new IOException(path + " is not a saved dungeon");
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION){
+            throw new IOException(path + " is format version " + version + ", only "
+                    + FORMAT_VERSION + " can be read");
+        }
+        seed = buffer.getLong(SEED);
+        roomCount = buffer.getInt(ROOM_COUNT);
+        indexOffset = (int) buffer.getLong(INDEX_OFFSET);
+        if (roomCount < 1 || indexOffset + (long) roomCount * ENTRY_SIZE > buffer.capacity()){
+            throw new IOException(path + " is truncated");
+        }
+    }
+
+    // maps a saved dungeon. the mapping outlives the channel, so nothing has to be closed
+    public static DungeonFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            if (channel.size() > Integer.MAX_VALUE){
+                throw new IOException(path + " is too big to map");
+            }
+            return new DungeonFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // writes every room of the world's dungeon and where the player is. a
+    // streaming dungeon is endless, so there is no whole of it to save
+    public static void save(Path path, World world) throws IOException {
+        ArrayList<Room> rooms;
+        Room start;
+        if (world.dungeon instanceof Dungeon){
+            rooms = ((Dungeon) world.dungeon).rooms;
+            start = world.dungeon.startRoom();
+        }
+        else if (world.dungeon instanceof DungeonFile){
+            // unpack every room before the file is written, it may be the very
+            // file that is mapped and once it is replaced the rooms not unpacked
+            // yet would be read from the old copy
+            DungeonFile file = (DungeonFile) world.dungeon;
+            rooms = new ArrayList<>(file.roomCount);
+            for (int i = 0; i < file.roomCount; i++){
+                rooms.add(file.getRoom(file.entryX(i), file.entryY(i)));
+            }
+            start = file.startRoom();
+        }
+        else {
+            throw new IllegalArgumentException("a streaming dungeon can't be saved");
+        }
+        save(path, world.dungeon.seed(), rooms, start, world);
+    }
+
+    // the world is only for where the player is, without one the file has no player.
+    // the file is written next to the target and moved over it, never written
+    // in place: the target may be the file a loaded dungeon has mapped, and
+    // truncating a mapped file breaks the mapping's reads
+    static void save(Path path, long seed, ArrayList<Room> rooms, Room start, World world) throws IOException {
+        Room[] sorted = rooms.toArray(new Room[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(room -> RoomIndex.key(room.x, room.y)));
+
+        long tilesOffset = HEADER_SIZE + (long) sorted.length * ENTRY_SIZE;
+        long size = tilesOffset;
+        for (Room room : sorted){
+            if (room.width > MAX_SIDE || room.height > MAX_SIDE){
+                throw new IOException("room " + room.x + "," + room.y + " is " + room.width + " by " + room.height
+                        + " tiles, a saved room can be at most " + MAX_SIDE + " either way");
+            }
+            size += (room.tiles.length + 3) / 4;
+        }
+        if (size > Integer.MAX_VALUE){
+            throw new IOException("dungeon of " + sorted.length + " rooms is too big for one file");
+        }
+
+        // built in memory rather than through a mapping of the temporary file,
+        // some systems won't move a file that still has a mapping open
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0, MAGIC);
+        out.putInt(4, FORMAT_VERSION);
+        out.putLong(SEED, seed);
+        out.putInt(ROOM_COUNT, sorted.length);
+        out.putInt(START_X, start.x);
+        out.putInt(START_Y, start.y);
+        out.putInt(PLAYER_ROOM_X, world != null ? world.currentRoom.x : start.x);
+        out.putInt(PLAYER_ROOM_Y, world != null ? world.currentRoom.y : start.y);
+        out.putInt(PLAYER_X, world != null ? world.playerX : -1);
+        out.putInt(PLAYER_Y, world != null ? world.playerY : -1);
+        out.putLong(TICKS, world != null ? world.ticks : 0);
+        out.putLong(INDEX_OFFSET, HEADER_SIZE);
+        out.putLong(TILES_OFFSET, tilesOffset);
+
+        int tiles = (int) tilesOffset;
+        for (int i = 0; i < sorted.length; i++){
+            Room room = sorted[i];
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            out.putInt(entry, room.x);
+            out.putInt(entry + 4, room.y);
+            out.putShort(entry + 8, (short) room.width);
+            out.putShort(entry + 10, (short) room.height);
+            out.putLong(entry + 16, tiles);
+            pack(room.tiles, out, tiles);
+            tiles += (room.tiles.length + 3) / 4;
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)){
+                while (out.hasRemaining()){
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exc){
+            Files.deleteIfExists(temporary);
+            throw exc;
+        }
+    }
+
+    private static void pack(byte[] tiles, ByteBuffer out, int offset){
+        for (int i = 0; i < tiles.length; i += 4){
+            int packed = 0;
+            for (int j = 0; j < 4 && i + j < tiles.length; j++){
+                int tile = tiles[i + j];
+                if (tile < 0 || tile > 3){
+                    throw new IllegalArgumentException("tile value " + tile + " doesn't fit in two bits");
+                }
+                packed |= tile << (j * 2);
+            }
+            out.put(offset + i / 4, (byte) packed);
+        }
+    }
+
+    // a world on the saved dungeon with the player back where they were saved,
+    // or on a random floor tile of the start room if the file has no player
+    public World loadWorld(Random generator){
+        Room room = getRoom(buffer.getInt(PLAYER_ROOM_X), buffer.getInt(PLAYER_ROOM_Y));
+        int x = buffer.getInt(PLAYER_X);
+        int y = buffer.getInt(PLAYER_Y);
+        if (room == null || x < 0 || y < 0){
+            return new World(this, generator);
+        }
+        World world = new World(this, room, x, y);
+        world.ticks = buffer.getLong(TICKS);
+        return world;
+    }
+
+    public int roomCount(){
+        return roomCount;
+    }
+
+    @Override
+    public long seed(){
+        return seed;
+    }
+
+    @Override
+    public Room startRoom(){
+        return getRoom(buffer.getInt(START_X), buffer.getInt(START_Y));
+    }
+
+    @Override
+    public Room getRoom(int x, int y){
+        Room room = unpacked.get(x, y);
+        if (room == null){
+            int entry = find(RoomIndex.key(x, y));
+            if (entry < 0){
+                return null;
+            }
+            room = unpack(entry);
+            unpacked.put(room);
+        }
+        return room;
+    }
+
+    @Override
+    public int loadedRooms(){
+        return unpacked.size();
+    }
+
+    // the room's tiles straight from the file, without keeping the room around
+    // or looking at any other room. null if there is no room there
+    public byte[] readTiles(int x, int y){
+        int entry = find(RoomIndex.key(x, y));
+        return entry < 0 ? null : unpack(entry).tiles;
+    }
+
+    private int entryX(int i){
+        return buffer.getInt(indexOffset + i * ENTRY_SIZE);
+    }
+
+    private int entryY(int i){
+        return buffer.getInt(indexOffset + i * ENTRY_SIZE + 4);
+    }
+
+    // binary search of the index, returns the entry number or -1
+    private int find(long key){
+        int low = 0;
+        int high = roomCount - 1;
+        while (low <= high){
+            int middle = (low + high) >>> 1;
+            long middleKey = RoomIndex.key(entryX(middle), entryY(middle));
+            if (middleKey < key){
+                low = middle + 1;
+            }
+            else if (middleKey > key){
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private Room unpack(int i){
+        int entry = indexOffset + i * ENTRY_SIZE;
+        // sizes are stored unsigned
+        int width = buffer.getShort(entry + 8) & 0xffff;
+        int height = buffer.getShort(entry + 10) & 0xffff;
+        int offset = (int) buffer.getLong(entry + 16);
+        byte[] tiles = new byte[width * height];
+        for (int t = 0; t < tiles.length; t += 4){
+            int packed = buffer.get(offset + t / 4);
+            for (int j = 0; j < 4 && t + j < tiles.length; j++){
+                tiles[t + j] = (byte) ((packed >> (j * 2)) & 3);
+            }
+        }
+        return new Room(tiles, entryX(i), entryY(i), width, height);
+    }
+}
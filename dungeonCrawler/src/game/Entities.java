@@ -0,0 +1,197 @@
+package game;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static game.Dungeon.*;
+
+// every monster in the dungeon, kept as one array per field instead of an
+// object each, so a tick runs down flat arrays and 100k of them cost a few MB.
+// entity i is x[i], y[i], vx[i] and so on. monsters in the player's room chase
+// them along the world's flow field, the rest wander around their own room.
+// nothing in here touches AWT or Swing, the board draws them
+public class Entities {
+
+    public static final byte WANDERING = 0;
+    public static final byte CHASING = 1;
+
+    // ticks between steps, a chasing monster is a little slower than the player
+    public static final int WANDER_TICKS = 16;
+    public static final int CHASE_TICKS = 10;
+    // how many entities one task of the parallel tick handles, below two
+    // chunks everything runs on the calling thread
+    private static final int CHUNK = 8192;
+
+    public int count;
+    // tile each entity stands on, and the step it takes next
+    public int[] x = new int[16];
+    public int[] y = new int[16];
+    public byte[] vx = new byte[16];
+    public byte[] vy = new byte[16];
+    // index into the room table, see roomId()
+    public int[] room = new int[16];
+    public byte[] state = new byte[16];
+    // ticks left until the next step
+    private int[] countdown = new int[16];
+
+    // the rooms entities live in, numbered in the order they were first seen.
+    // an evicted room's slot is null, and its entities are parked where they
+    // stand until the room is made again, see evict()
+    private Room[] rooms = new Room[16];
+    private int roomCount;
+    private final HashMap<Long, Integer> roomIds = new HashMap<>();
+
+    // how long the last tick took
+    public long nanos;
+
+    private final long seed;
+
+    public Entities(long seedIn){
+        seed = seedIn;
+    }
+
+    // the id entities use for a room, giving it one if it hasn't got one yet. a
+    // streaming dungeon can hand out a new Room for the same spot after evicting
+    // it, which takes over the old one's id
+    public int roomId(Room roomIn){
+        Long key = RoomIndex.key(roomIn.x, roomIn.y);
+        Integer id = roomIds.get(key);
+        if (id == null){
+            id = roomCount++;
+            if (id == rooms.length){
+                rooms = Arrays.copyOf(rooms, id * 2);
+            }
+            roomIds.put(key, id);
+        }
+        rooms[id] = roomIn;
+        return id;
+    }
+
+    // lets go of a room a streaming dungeon dropped. its entities stop ticking
+    // rather than keep the room in memory, and carry on from where they stood
+    // once roomId() is given the room again
+    public void evict(Room roomIn){
+        Integer id = roomIds.get(RoomIndex.key(roomIn.x, roomIn.y));
+        if (id != null && rooms[id] == roomIn){
+            rooms[id] = null;
+        }
+    }
+
+    // the room's id, or -1 if no entity has ever lived there
+    public int idOf(Room roomIn){
+        Integer id = roomIds.get(RoomIndex.key(roomIn.x, roomIn.y));
+        return id == null ? -1 : id;
+    }
+
+    public boolean hasRoom(Room roomIn){
+        return idOf(roomIn) != -1;
+    }
+
+    public int spawn(Room roomIn, int tileX, int tileY){
+        if (count == x.length){
+            int capacity = count * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            vx = Arrays.copyOf(vx, capacity);
+            vy = Arrays.copyOf(vy, capacity);
+            room = Arrays.copyOf(room, capacity);
+            state = Arrays.copyOf(state, capacity);
+            countdown = Arrays.copyOf(countdown, capacity);
+        }
+        int i = count++;
+        x[i] = tileX;
+        y[i] = tileY;
+        vx[i] = 0;
+        vy[i] = 0;
+        room[i] = roomId(roomIn);
+        state[i] = WANDERING;
+        // spread the first steps out so they don't all move on the same tick
+        countdown[i] = 1 + (int) (mix(i, 0) % WANDER_TICKS);
+        return i;
+    }
+
+    // spawns monsters on random floor tiles of a room, the same ones every time
+    // for the same seed and room
+    public void populate(Room roomIn, int monsters){
+        roomId(roomIn);
+        SplittableRandom random = roomRandom(~seed, roomIn.x, roomIn.y);
+        for (int i = 0; i < monsters; i++){
+            int tile = roomIn.randomFloor(random::nextInt);
+            if (tile < 0){
+                // no floor to stand on
+                return;
+            }
+            spawn(roomIn, tile % roomIn.width, tile / roomIn.width);
+        }
+    }
+
+    // moves every entity one tick. entities only read the rooms and the flow
+    // field and only write their own slots, so chunks of them run in parallel
+    // on the common fork-join pool
+    public void tick(long ticks, Room playerRoom, FlowField flow){
+        long startTime = System.nanoTime();
+        int playerRoomId = idOf(playerRoom);
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        if (chunks < 2){
+            tickRange(0, count, ticks, playerRoomId, flow);
+        }
+        else {
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+                    tickRange(chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK), ticks, playerRoomId, flow));
+        }
+        nanos = System.nanoTime() - startTime;
+    }
+
+    private void tickRange(int from, int to, long ticks, int playerRoomId, FlowField flow){
+        for (int i = from; i < to; i++){
+            Room at = rooms[room[i]];
+            if (at == null || --countdown[i] > 0){
+                // parked in an evicted room, or not due to step
+                continue;
+            }
+            byte dir = room[i] == playerRoomId ? flow.direction(x[i], y[i]) : FlowField.NONE;
+            if (dir != FlowField.NONE || (room[i] == playerRoomId && flow.distance(x[i], y[i]) == 0)){
+                // caught up with the player, or on the way to them
+                state[i] = CHASING;
+                vx[i] = dir == FlowField.NONE ? 0 : (byte) FlowField.DX[dir];
+                vy[i] = dir == FlowField.NONE ? 0 : (byte) FlowField.DY[dir];
+                countdown[i] = CHASE_TICKS;
+            }
+            else {
+                state[i] = WANDERING;
+                long roll = mix(i, ticks);
+                if ((vx[i] == 0 && vy[i] == 0) || roll % 4 == 0){
+                    int turn = (int) ((roll >>> 8) % 5);
+                    // one roll in five stands still for a step
+                    vx[i] = (byte) (turn == 0 ? -1 : turn == 1 ? 1 : 0);
+                    vy[i] = (byte) (turn == 2 ? -1 : turn == 3 ? 1 : 0);
+                }
+                countdown[i] = WANDER_TICKS;
+            }
+
+            int nx = x[i] + vx[i];
+            int ny = y[i] + vy[i];
+            if (at.contains(nx, ny) && at.isWalkable(nx, ny)){
+                x[i] = nx;
+                y[i] = ny;
+            }
+            else {
+                // walked into a wall, pick another way next step
+                vx[i] = 0;
+                vy[i] = 0;
+            }
+        }
+    }
+
+    // a random looking number for an entity on a tick that doesn't depend on
+    // which thread asks or in what order, so a tick comes out the same however
+    // it is split into chunks
+    private long mix(int i, long ticks){
+        long z = seed + i * 0x9e3779b97f4a7c15L + ticks * 0xc2b2ae3d27d4eb4fL;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (z ^ (z >>> 33)) >>> 1;
+    }
+}
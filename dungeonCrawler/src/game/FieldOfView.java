@@ -0,0 +1,200 @@
+package game;
+
+// the tiles of a room the player can see from where they stand, worked out
+// with recursive shadowcasting: the area around them is split into eight
+// wedges, and each wedge is scanned a row at a time outwards, narrowing the
+// range of slopes still in view whenever a wall is met and starting a new scan
+// for the part beyond the wall. every tile within RADIUS is looked at no more
+// than about once, and tiles behind a wall not at all. walls are seen but
+// block the view, floor and doors don't.
+// like FlowField it only works the view out again once the player has moved
+// to another tile or room, or the room's tiles changed
+public class FieldOfView {
+
+    // how far the player can see in tiles, override with -Ddungeon.sightRadius=N
+    public static final int RADIUS = Integer.getInteger("dungeon.sightRadius", 8);
+
+    // how each of the eight wedges turns the scan's row and column into x and
+    // y offsets: x = col * XX + row * XY, y = col * YX + row * YY
+    private static final int[] XX = {1, 0, 0, -1, -1, 0, 0, 1};
+    private static final int[] XY = {0, 1, -1, 0, 0, -1, 1, 0};
+    private static final int[] YX = {0, 1, 1, 0, 0, -1, -1, 0};
+    private static final int[] YY = {1, 0, 0, 1, -1, 0, 0, -1};
+    // the slopes of the two corners of each tile of a wedge as seen from the
+    // middle of the origin tile, by row and then column + row, worked out once
+    // rather than dividing for every tile scanned
+    private static final double[][] LEFT_SLOPES = new double[RADIUS + 1][];
+    private static final double[][] RIGHT_SLOPES = new double[RADIUS + 1][];
+
+    static {
+        for (int row = 1; row <= RADIUS; row++){
+            LEFT_SLOPES[row] = new double[row + 1];
+            RIGHT_SLOPES[row] = new double[row + 1];
+            for (int col = -row; col <= 0; col++){
+                LEFT_SLOPES[row][col + row] = (col - 0.5) / (-row + 0.5);
+                RIGHT_SLOPES[row][col + row] = (col + 0.5) / (-row - 0.5);
+            }
+        }
+    }
+
+    // what the view was last worked out for
+    private Room room;
+    private int version;
+    private int originX = -1;
+    private int originY = -1;
+
+    // one bit per tile of the room, set where it is in view, indexed by y * width + x
+    private long[] visible = new long[0];
+    // the tiles in view, only these are cleared before the next update rather than the whole room
+    private int[] seen = new int[0];
+    private int seenCount;
+    // the room the view is being worked out in and where its tiles go as they come into view
+    private long[] explored;
+
+    // the tiles in view lie within these, inclusive
+    public int minX;
+    public int minY;
+    public int maxX;
+    public int maxY;
+
+    // how many times the view has been worked out, and how long the last one took
+    public long updates;
+    public long nanos;
+
+    // works out what can be seen from the given tile of the room, and marks
+    // it in explored, a bitset over the room's tiles the caller keeps. does
+    // nothing unless the tile, the room or its tiles changed since last time.
+    // returns whether it had to work the view out again
+    public boolean update(Room roomIn, int x, int y, long[] exploredIn){
+        if (roomIn == room && roomIn.version == version && x == originX && y == originY){
+            return false;
+        }
+        long startTime = System.nanoTime();
+        int size = roomIn.tiles.length;
+        if (visible.length < (size + 63) / 64){
+            visible = new long[(size + 63) / 64];
+        }
+        else {
+            for (int i = 0; i < seenCount; i++){
+                visible[seen[i] >>> 6] = 0;
+            }
+        }
+        int diameter = 2 * RADIUS + 1;
+        if (seen.length < Math.min(size, diameter * diameter)){
+            seen = new int[Math.min(size, diameter * diameter)];
+        }
+        seenCount = 0;
+        room = roomIn;
+        version = roomIn.version;
+        originX = x;
+        originY = y;
+        explored = exploredIn;
+        minX = x;
+        minY = y;
+        maxX = x;
+        maxY = y;
+
+        light(x, y);
+        for (int wedge = 0; wedge < 8; wedge++){
+            scan(1, 1.0, 0.0, wedge);
+        }
+
+        explored = null;
+        updates++;
+        nanos = System.nanoTime() - startTime;
+        return true;
+    }
+
+    // scans one wedge from the given row outwards, seeing the tiles whose
+    // slopes fall between start and end, 1 being the wedge's diagonal edge and
+    // 0 the straight one
+    private void scan(int firstRow, double start, double end, int wedge){
+        if (start < end){
+            return;
+        }
+        int radiusSquared = RADIUS * RADIUS;
+        byte[] tiles = room.tiles;
+        int width = room.width;
+        int height = room.height;
+        int xx = XX[wedge];
+        int xy = XY[wedge];
+        int yx = YX[wedge];
+        int yy = YY[wedge];
+        double nextStart = start;
+        for (int row = firstRow; row <= RADIUS; row++){
+            boolean blocked = false;
+            double[] leftSlopes = LEFT_SLOPES[row];
+            double[] rightSlopes = RIGHT_SLOPES[row];
+            for (int col = -row; col <= 0; col++){
+                double leftSlope = leftSlopes[col + row];
+                double rightSlope = rightSlopes[col + row];
+                if (start < rightSlope){
+                    continue;
+                }
+                if (end > leftSlope){
+                    break;
+                }
+
+                int x = originX + col * xx - row * xy;
+                int y = originY + col * yx - row * yy;
+                boolean inside = x >= 0 && y >= 0 && x < width && y < height;
+                if (inside && col * col + row * row <= radiusSquared){
+                    light(x, y);
+                }
+                // floor and doors are the even tile values
+                boolean wall = !inside || (tiles[y * width + x] & 1) != 0;
+                if (blocked){
+                    if (wall){
+                        // still behind the wall, the view starts again past its far side
+                        nextStart = rightSlope;
+                    }
+                    else {
+                        blocked = false;
+                        start = nextStart;
+                    }
+                }
+                else if (wall && row < RADIUS){
+                    // a wall starts here, what is behind it is a narrower scan of its own
+                    blocked = true;
+                    scan(row + 1, start, leftSlope, wedge);
+                    nextStart = rightSlope;
+                }
+            }
+            if (blocked){
+                // the row ended behind a wall, so there is nothing more to see
+                break;
+            }
+        }
+    }
+
+    private void light(int x, int y){
+        int tile = y * room.width + x;
+        long bit = 1L << tile;
+        if ((visible[tile >>> 6] & bit) != 0){
+            // the wedges overlap along their edges
+            return;
+        }
+        visible[tile >>> 6] |= bit;
+        explored[tile >>> 6] |= bit;
+        seen[seenCount++] = tile;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    public Room room(){
+        return room;
+    }
+
+    public boolean isVisible(int x, int y){
+        int tile = y * room.width + x;
+        return (visible[tile >>> 6] & 1L << tile) != 0;
+    }
+
+    // whether a tile is set in a bitset over a room's tiles, like the explored ones
+    public static boolean isSet(long[] bits, Room room, int x, int y){
+        int tile = y * room.width + x;
+        return (bits[tile >>> 6] & 1L << tile) != 0;
+    }
+}
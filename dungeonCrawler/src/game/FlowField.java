@@ -0,0 +1,118 @@
+package game;
+
+import java.util.Arrays;
+
+// a breadth first pass out from one tile of a room, leaving every walkable
+// tile with its distance to that tile and the step to take towards it. any
+// number of monsters can then chase the target by looking up the tile they
+// stand on, instead of each searching for a path of their own
+public class FlowField {
+
+    // the steps a tile can point along, directions[tile] indexes these
+    public static final int[] DX = {-1, 1, 0, 0};
+    public static final int[] DY = {0, 0, -1, 1};
+    public static final byte NONE = -1;
+    // the field stops this many steps out from the target, so in a huge room
+    // it costs the same as in a small one. the walks in a COLUMNS by ROWS room
+    // come nowhere near it. override with -Ddungeon.chaseRange=N
+    public static final int RANGE = Integer.getInteger("dungeon.chaseRange", 64);
+
+    // what the field was last worked out for
+    private Room room;
+    private int version;
+    private int targetX = -1;
+    private int targetY = -1;
+
+    // steps to the target, -1 where it can't be reached, indexed by y * width + x.
+    // the arrays grow to the biggest room the field has covered
+    private int[] distances = new int[0];
+    // index into DX/DY of the step towards the target, NONE on the target and
+    // where it can't be reached
+    private byte[] directions = new byte[0];
+    // the tiles the last update reached, in order. only these are cleared
+    // before the next one rather than the whole room
+    private int[] queue = new int[0];
+    private int reached;
+
+    // how many times the field has been worked out, and how long the last one took
+    public long updates;
+    public long nanos;
+
+    // makes the field lead to the given tile of the room. does nothing unless
+    // the target tile, the room or the room's tiles changed since last time.
+    // returns whether it had to work the field out again
+    public boolean update(Room roomIn, int x, int y){
+        if (roomIn == room && roomIn.version == version && x == targetX && y == targetY){
+            return false;
+        }
+        long startTime = System.nanoTime();
+        room = roomIn;
+        version = roomIn.version;
+        targetX = x;
+        targetY = y;
+
+        int width = roomIn.width;
+        int size = roomIn.tiles.length;
+        if (distances.length < size){
+            distances = new int[size];
+            directions = new byte[size];
+            queue = new int[size];
+            Arrays.fill(distances, -1);
+            Arrays.fill(directions, NONE);
+        }
+        else {
+            for (int i = 0; i < reached; i++){
+                distances[queue[i]] = -1;
+                directions[queue[i]] = NONE;
+            }
+        }
+
+        int target = y * width + x;
+        distances[target] = 0;
+        queue[0] = target;
+        int head = 0;
+        int tail = 1;
+        while (head < tail){
+            int current = queue[head++];
+            if (distances[current] >= RANGE){
+                continue;
+            }
+            int cx = current % width;
+            int cy = current / width;
+            for (int dir = 0; dir < 4; dir++){
+                int nx = cx + DX[dir];
+                int ny = cy + DY[dir];
+                if (!room.contains(nx, ny) || !room.isWalkable(nx, ny)){
+                    continue;
+                }
+                int neighbour = ny * width + nx;
+                if (distances[neighbour] != -1){
+                    continue;
+                }
+                distances[neighbour] = distances[current] + 1;
+                // the neighbour was reached by stepping away from current, so
+                // it points back the opposite way, which is dir ^ 1
+                directions[neighbour] = (byte) (dir ^ 1);
+                queue[tail++] = neighbour;
+            }
+        }
+
+        reached = tail;
+        updates++;
+        nanos = System.nanoTime() - startTime;
+        return true;
+    }
+
+    public Room room(){
+        return room;
+    }
+
+    // the step to take from a tile, an index into DX/DY or NONE
+    public byte direction(int x, int y){
+        return directions[y * room.width + x];
+    }
+
+    public int distance(int x, int y){
+        return distances[y * room.width + x];
+    }
+}
@@ -0,0 +1,84 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+
+import static game.Board.*;
+
+// the fog over the player's room: black over the tiles they have never seen,
+// a dark veil over those they have seen but can't see right now. it is an
+// image with one pixel per tile, stretched over the room with a single
+// drawImage, and when the view changes only the pixels around the old and new
+// view are rewritten. turn it off with -Ddungeon.fog=false
+public class FogOverlay {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("dungeon.fog", "true"));
+
+    private static final int UNSEEN = 0xff000000;
+    private static final int REMEMBERED = 0xa0000000;
+    private static final int VISIBLE = 0;
+
+    private BufferedImage image;
+    // the room and view the image shows
+    private Room room;
+    private long updates = -1;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    // brings the image up to date with what the player can see. returns the
+    // area that changed in room pixels, empty if nothing did
+    public Rectangle update(World world){
+        FieldOfView sight = world.sight;
+        Room current = sight.room();
+        if (current == room && sight.updates == updates){
+            return new Rectangle();
+        }
+        long[] explored = world.explored(current);
+        Rectangle changed;
+        if (current != room){
+            if (image == null || image.getWidth() != current.width || image.getHeight() != current.height){
+                image = new BufferedImage(current.width, current.height, BufferedImage.TYPE_INT_ARGB);
+            }
+            paint(sight, current, explored, 0, 0, current.width - 1, current.height - 1);
+            changed = new Rectangle(0, 0, current.width * TILE_SIZE, current.height * TILE_SIZE);
+        }
+        else {
+            // a tile can only have come into or gone out of view if it is in the old view or the new one
+            int left = Math.min(minX, sight.minX);
+            int top = Math.min(minY, sight.minY);
+            int right = Math.max(maxX, sight.maxX);
+            int bottom = Math.max(maxY, sight.maxY);
+            paint(sight, current, explored, left, top, right, bottom);
+            changed = new Rectangle(left * TILE_SIZE, top * TILE_SIZE,
+                    (right - left + 1) * TILE_SIZE, (bottom - top + 1) * TILE_SIZE);
+        }
+        room = current;
+        updates = sight.updates;
+        minX = sight.minX;
+        minY = sight.minY;
+        maxX = sight.maxX;
+        maxY = sight.maxY;
+        return changed;
+    }
+
+    private void paint(FieldOfView sight, Room current, long[] explored, int left, int top, int right, int bottom){
+        for (int y = top; y <= bottom; y++){
+            for (int x = left; x <= right; x++){
+                image.setRGB(x, y, sight.isVisible(x, y) ? VISIBLE
+                        : FieldOfView.isSet(explored, current, x, y) ? REMEMBERED : UNSEEN);
+            }
+        }
+    }
+
+    // draws the fog over the room in room pixels, the graphics' clip keeps it
+    // to the area being repainted. nothing is drawn until update() has caught
+    // up with the room
+    public void draw(Graphics g, Room current, ImageObserver observer){
+        if (image != null && current == room){
+            g.drawImage(image, 0, 0, room.width * TILE_SIZE, room.height * TILE_SIZE, observer);
+        }
+    }
+}
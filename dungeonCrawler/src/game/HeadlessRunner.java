@@ -0,0 +1,59 @@
+package game;
+
+import java.util.HashSet;
+import java.util.Random;
+
+// runs the simulation without a window as fast as it will go, with a bot that
+// clicks around and walks through doors in place of a player.
+// run with: java [-Ddungeon.seed=N] [-Ddungeon.streaming=true] [-Ddungeon.record=FILE] game.HeadlessRunner [ticks]
+public class HeadlessRunner {
+
+    public static void main(String[] args){
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+
+        long seed = Dungeon.defaultSeed();
+        Random generator = new Random(seed);
+        World world = new World(Dungeon.create(seed), generator);
+        Simulation simulation = new Simulation(world);
+        Recording recording = Recording.fromProperty(world);
+        Metrics.startDumping();
+        HashSet<Long> visited = new HashSet<>();
+        long entityNanos = 0;
+
+        long start = System.nanoTime();
+        for (long i = 0; i < ticks; i++){
+            if (!world.isFollowingPath()){
+                bot(world, generator);
+            }
+            simulation.step();
+            entityNanos += world.entities.nanos;
+            visited.add(RoomIndex.key(world.currentRoom.x, world.currentRoom.y));
+        }
+        long elapsed = System.nanoTime() - start;
+        if (recording != null){
+            recording.close(world);
+        }
+
+        System.out.println("seed:          " + seed);
+        System.out.println("ticks:         " + ticks);
+        System.out.println("time:          " + elapsed / 1_000_000 + " ms");
+        System.out.println("ticks/s:       " + (long) (ticks / (elapsed / 1e9)));
+        System.out.println("rooms visited: " + visited.size());
+        System.out.println("rooms loaded:  " + world.dungeon.loadedRooms());
+        System.out.println("monsters:      " + world.entities.count + ", " + entityNanos / ticks / 1000 + " us/tick");
+        System.out.println(world.paths.stats());
+        System.out.print(Metrics.report());
+    }
+
+    // either walks to a random tile of the room or takes a single step, which
+    // carries the bot into the next room when it is standing in a doorway
+    private static void bot(World world, Random generator){
+        if (generator.nextInt(4) == 0){
+            int dir = generator.nextInt(4);
+            world.movePlayer(dir == 0 ? -1 : dir == 1 ? 1 : 0, dir == 2 ? -1 : dir == 3 ? 1 : 0);
+        }
+        else {
+            world.moveTo(generator.nextInt(world.currentRoom.width), generator.nextInt(world.currentRoom.height));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// counts how many recorded values (nanoseconds, usually) fell into each of a
+// fixed set of buckets, so percentiles can be read off without keeping the
+// values. buckets double in width every 8 of them, which keeps any percentile
+// within an eighth of the true value. recording is a couple of atomic adds
+// and never allocates, so it is safe to call from any thread on every tick
+public class Histogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    public final String name;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram(String nameIn){
+        name = nameIn;
+    }
+
+    public void record(long value){
+        if (value < 0){
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        total.add(value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)){
+            seen = max.get();
+        }
+    }
+
+    public long count(){
+        return count.sum();
+    }
+
+    public long mean(){
+        long samples = count.sum();
+        return samples == 0 ? 0 : total.sum() / samples;
+    }
+
+    public long max(){
+        return max.get();
+    }
+
+    // the value at or below which the given fraction of the samples fall, 0 when empty
+    public long percentile(double fraction){
+        long samples = count.sum();
+        if (samples == 0){
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * samples));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++){
+            seen += counts.get(b);
+            if (seen >= target){
+                return Math.min(upperBound(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // values below SUB get a bucket each, above that the top SUB_BITS + 1 bits pick it
+    static int bucket(long value){
+        if (value < SUB){
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + mantissa;
+    }
+
+    static long upperBound(int bucket){
+        if (bucket < SUB){
+            return bucket;
+        }
+        int exponent = bucket / SUB - 1 + SUB_BITS;
+        int mantissa = bucket % SUB;
+        return ((long) (SUB + mantissa + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    // one line for reports, in microseconds
+    public String summary(){
+        return String.format("%-10s %8d samples, mean %8.1f us, p50 %8.1f us, p90 %8.1f us, p99 %8.1f us, max %8.1f us",
+                name, count(), mean() / 1000.0, percentile(0.5) / 1000.0, percentile(0.9) / 1000.0,
+                percentile(0.99) / 1000.0, max() / 1000.0);
+    }
+}
@@ -0,0 +1,303 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+
+import static game.Dungeon.*;
+
+// jump point search over a room. instead of opening every neighbour of every
+// tile, the search only stops at tiles where the shortest path could have to
+// turn, and skips straight over the runs of floor in between. how far each
+// jump goes is looked up in a table per room, worked out once and rebuilt when
+// the room's tiles change.
+//
+// the orthogonal variant moves like the plain pathfinder, preferring vertical
+// moves first so that a horizontal run only has to stop where a wall behind it
+// forces a turn. the diagonal variant also moves diagonally, costing 14 against
+// 10 for a straight step, and never cuts the corner of a wall.
+//
+// the tables take 8 or 16 bytes per tile, so only rooms up to MAX_TILES get
+// them, see handles(). PathService searches bigger rooms with A* instead
+public class JumpPointSearch {
+
+    // the most tiles a room can have to be searched this way, 512x512 is a
+    // 4 MB table with diagonals. jump distances are shorts as well, so no
+    // run can be longer than Short.MAX_VALUE either
+    public static final int MAX_TILES = 512 * 512;
+
+    // how many jump points the last search took off the open list, and how long it took
+    public int expanded;
+    public long nanos;
+
+    public final boolean diagonal;
+    // see Pathfinder.cancelled
+    public BooleanSupplier cancelled = Pathfinder.NEVER;
+
+    // east, west, south, north, then the diagonals
+    private static final int[] DX = {1, -1, 0, 0, 1, -1, 1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+
+    // jump[dir * width * height + tile] is how many steps from the tile in that
+    // direction the next jump point is, or if it is zero or less, minus how many
+    // steps can be taken before running into a wall
+    private static class JumpTable {
+        final int version;
+        final short[] jump;
+
+        JumpTable(int versionIn, short[] jumpIn){
+            version = versionIn;
+            jump = jumpIn;
+        }
+    }
+
+    // weak keys, so rooms a streaming dungeon evicts take their table with them
+    private final WeakHashMap<Room, JumpTable> tables = new WeakHashMap<>();
+    // the direction each jump point was reached in, -1 for the start. grows to
+    // the biggest room searched
+    private int[] arrival = new int[COLUMNS * ROWS];
+
+    public JumpPointSearch(boolean diagonalIn){
+        diagonal = diagonalIn;
+    }
+
+    // whether a room is small enough for jump point search
+    public static boolean handles(Room room){
+        return room.tiles.length <= MAX_TILES && room.width <= Short.MAX_VALUE && room.height <= Short.MAX_VALUE;
+    }
+
+    // only for rooms handles() accepts
+    public ArrayList<Node> find(Room room, int startX, int startY, int endX, int endY){
+        if (!handles(room)){
+            throw new IllegalArgumentException("room of " + room.width + "x" + room.height
+                    + " tiles is too big for jump point search");
+        }
+        long startTime = System.nanoTime();
+        expanded = 0;
+        try {
+            if (!room.contains(endX, endY) || !room.isWalkable(endX, endY)){
+                return null;
+            }
+            short[] jump = table(room).jump;
+            SearchWorkspace ws = SearchWorkspace.current();
+            ws.reset(room.tiles.length);
+            if (arrival.length < room.tiles.length){
+                arrival = new int[room.tiles.length];
+            }
+
+            int width = room.width;
+            int start = startY * width + startX;
+            int end = endY * width + endX;
+            ws.open(start, 0, -1, heuristic(startX, startY, endX, endY));
+            arrival[start] = -1;
+
+            int directions = diagonal ? 8 : 4;
+            while (ws.heapSize > 0){
+                int current = ws.pop();
+                ws.close(current);
+                expanded++;
+                if (expanded % Pathfinder.CANCEL_CHECK == 0 && cancelled.getAsBoolean()){
+                    return null;
+                }
+                if (current == end){
+                    return getPath(ws, end, width);
+                }
+
+                int cx = current % width;
+                int cy = current / width;
+                for (int dir = 0; dir < directions; dir++){
+                    if (!isSuccessor(room, cx, cy, arrival[current], dir)){
+                        continue;
+                    }
+                    int steps = jumpSteps(jump, room.tiles.length, current, cx, cy, dir, endX, endY);
+                    if (steps <= 0){
+                        continue;
+                    }
+                    int nx = cx + DX[dir] * steps;
+                    int ny = cy + DY[dir] * steps;
+                    int next = ny * width + nx;
+                    if (ws.isClosed(next)){
+                        continue;
+                    }
+
+                    int tentativeG = ws.g[current] + steps * (dir < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+                    if (!ws.isSeen(next)){
+                        ws.open(next, tentativeG, current, heuristic(nx, ny, endX, endY));
+                        arrival[next] = dir;
+                    }
+                    else if (tentativeG < ws.g[next]){
+                        ws.decrease(next, tentativeG, current);
+                        arrival[next] = dir;
+                    }
+                }
+            }
+            return null; // No path found
+        } finally {
+            nanos = System.nanoTime() - startTime;
+        }
+    }
+
+    // whether a path that arrived at the tile moving in direction `from` could
+    // carry on in direction `dir` without there being an equally short path
+    // that gets there another way
+    private boolean isSuccessor(Room room, int x, int y, int from, int dir){
+        if (from == -1){
+            // the start can go anywhere
+            return true;
+        }
+        if (dir == from){
+            return true;
+        }
+        if (!diagonal){
+            if (from >= 2){
+                // vertical moves can always turn sideways
+                return dir < 2;
+            }
+        }
+        else if (from >= 4){
+            // diagonal moves carry on along either of their straight parts
+            return dir < 4 && (DX[dir] == DX[from] || DY[dir] == DY[from]);
+        }
+        // straight moves only turn to a side, or diagonally forward to it, when
+        // the tile behind that side is a wall
+        int dx = DX[from];
+        int dy = DY[from];
+        int sideX = dir < 4 ? DX[dir] : DX[dir] - dx;
+        int sideY = dir < 4 ? DY[dir] : DY[dir] - dy;
+        if (Math.abs(sideX) + Math.abs(sideY) != 1 || sideX * dx + sideY * dy != 0){
+            return false;
+        }
+        return isForced(room, x, y, dx, dy, sideX, sideY);
+    }
+
+    // how many steps to go in the direction before stopping at a jump point,
+    // or at the goal or the point level with it, and 0 if it leads nowhere
+    private int jumpSteps(short[] jump, int size, int tile, int x, int y, int dir, int endX, int endY){
+        int distance = jump[dir * size + tile];
+        int reach = Math.abs(distance);
+        int dx = DX[dir];
+        int dy = DY[dir];
+        int toX = endX - x;
+        int toY = endY - y;
+
+        if (dir < 2 && toY == 0 && Integer.signum(toX) == dx && Math.abs(toX) <= reach){
+            return Math.abs(toX);
+        }
+        if (dir >= 2 && dir < 4 && (!diagonal || toX == 0) && Integer.signum(toY) == dy && Math.abs(toY) <= reach){
+            // without diagonals a vertical run can turn sideways anywhere, so
+            // stop level with the goal even when it isn't in this column
+            return Math.abs(toY);
+        }
+        if (dir >= 4 && Integer.signum(toX) == dx && Integer.signum(toY) == dy){
+            int level = Math.min(Math.abs(toX), Math.abs(toY));
+            if (level <= reach){
+                return level;
+            }
+        }
+        return Math.max(distance, 0);
+    }
+
+    private int heuristic(int x1, int y1, int x2, int y2){
+        int xDistance = Math.abs(x1 - x2);
+        int yDistance = Math.abs(y1 - y2);
+        if (!diagonal){
+            return STRAIGHT_COST * (xDistance + yDistance);
+        }
+        return STRAIGHT_COST * Math.max(xDistance, yDistance)
+                + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(xDistance, yDistance);
+    }
+
+    private static boolean free(Room room, int x, int y){
+        return room.contains(x, y) && room.isWalkable(x, y);
+    }
+
+    // whether a tile reached moving straight along (dx, dy) has a forced turn
+    // to the side (sideX, sideY): open to that side but walled in behind it
+    private static boolean isForced(Room room, int x, int y, int dx, int dy, int sideX, int sideY){
+        return free(room, x + sideX, y + sideY) && !free(room, x + sideX - dx, y + sideY - dy);
+    }
+
+    private static boolean hasForcedTurn(Room room, int x, int y, int dx, int dy){
+        return isForced(room, x, y, dx, dy, dy, dx) || isForced(room, x, y, dx, dy, -dy, -dx);
+    }
+
+    private JumpTable table(Room room){
+        JumpTable cached = tables.get(room);
+        if (cached != null && cached.version == room.version){
+            return cached;
+        }
+
+        int width = room.width;
+        int height = room.height;
+        int size = width * height;
+        short[] jump = new short[(diagonal ? 8 : 4) * size];
+        // the straight directions first, the others are built from them
+        int straight = diagonal ? 4 : 2;
+        for (int dir = 0; dir < (diagonal ? 8 : 4); dir++){
+            int dx = DX[dir];
+            int dy = DY[dir];
+            // walk the tiles against the direction so the next tile along is always done first
+            for (int i = 0; i < height; i++){
+                int y = dy > 0 ? height - 1 - i : i;
+                for (int j = 0; j < width; j++){
+                    int x = dx > 0 ? width - 1 - j : j;
+                    int mx = x + dx;
+                    int my = y + dy;
+                    int value;
+                    if (!free(room, mx, my) || (dir >= 4 && (!free(room, x + dx, y) || !free(room, x, y + dy)))){
+                        value = 0;
+                    }
+                    else if (dir < straight ? hasForcedTurn(room, mx, my, dx, dy) : turnLeadsSomewhere(jump, size, my * width + mx, dir)){
+                        value = 1;
+                    }
+                    else {
+                        int next = jump[dir * size + my * width + mx];
+                        value = next > 0 ? next + 1 : next - 1;
+                    }
+                    jump[dir * size + y * width + x] = (short) value;
+                }
+            }
+        }
+
+        JumpTable table = new JumpTable(room.version, jump);
+        tables.put(room, table);
+        return table;
+    }
+
+    // for moves that can turn at every tile (vertical ones without diagonals,
+    // diagonal ones with them), a tile is a jump point when one of the straight
+    // runs it could turn into reaches a jump point
+    private boolean turnLeadsSomewhere(short[] jump, int size, int tile, int dir){
+        if (!diagonal){
+            return jump[tile] > 0 || jump[size + tile] > 0;
+        }
+        int horizontal = DX[dir] > 0 ? 0 : 1;
+        int vertical = DY[dir] > 0 ? 2 : 3;
+        return jump[horizontal * size + tile] > 0 || jump[vertical * size + tile] > 0;
+    }
+
+    // fills in the tiles between the jump points
+    private ArrayList<Node> getPath(SearchWorkspace ws, int end, int width){
+        ArrayList<Node> path = new ArrayList<>();
+        int node = end;
+        path.add(new Node(node % width, node / width));
+        while (ws.cameFrom[node] != -1){
+            int from = ws.cameFrom[node];
+            int x = node % width;
+            int y = node / width;
+            int dx = Integer.signum(from % width - x);
+            int dy = Integer.signum(from / width - y);
+            while (x != from % width || y != from / width){
+                x += dx;
+                y += dy;
+                path.add(new Node(x, y));
+            }
+            node = from;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
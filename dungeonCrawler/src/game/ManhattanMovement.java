@@ -0,0 +1,27 @@
+package game;
+
+// up, down, left and right, every step costing the same
+public class ManhattanMovement implements MovementModel {
+
+    private static final int[][] MOVES = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    @Override
+    public String name(){
+        return "manhattan";
+    }
+
+    @Override
+    public int[][] moves(){
+        return MOVES;
+    }
+
+    @Override
+    public int cost(Room room, int x, int y, int dx, int dy){
+        return 10;
+    }
+
+    @Override
+    public int estimate(int x1, int y1, int x2, int y2){
+        return 10 * (Math.abs(x1 - x2) + Math.abs(y1 - y2));
+    }
+}
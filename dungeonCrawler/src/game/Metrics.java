@@ -0,0 +1,135 @@
+package game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// where the time goes: latency histograms and counters for the hot paths,
+// plus a JFR event for each so a flight recording shows them on the timeline.
+// the histograms are always on, recording into one is a few atomic adds. the
+// events cost next to nothing unless a recording is running, start one with
+// -XX:StartFlightRecording and look under "Dungeon Crawler".
+// with -Ddungeon.metricsFile=FILE the report is rewritten every few seconds
+public final class Metrics {
+
+    public static final Histogram TICK = new Histogram("tick");
+    public static final Histogram PAINT = new Histogram("paint");
+    public static final Histogram PATH = new Histogram("path");
+    public static final Histogram ROUTE = new Histogram("route");
+    public static final Histogram GENERATION = new Histogram("generation");
+    // loading the sprites, once per Assets.loadAll()
+    public static final Histogram ASSETS = new Histogram("assets");
+
+    // frames of the board's timer, not paints, see DebugHud.frame()
+    public static final LongAdder FRAMES = new LongAdder();
+    public static final LongAdder NODES_EXPANDED = new LongAdder();
+    public static final LongAdder ROOMS_GENERATED = new LongAdder();
+    // generated rooms whose doors didn't all connect, see Connectivity
+    public static final LongAdder ROOMS_REPAIRED = new LongAdder();
+
+    // how often the report is written, override with -Ddungeon.metricsSeconds=N
+    public static final int DUMP_SECONDS = Integer.getInteger("dungeon.metricsSeconds", 5);
+
+    private static final long START = System.nanoTime();
+    private static ScheduledExecutorService dumper;
+
+    private Metrics(){
+    }
+
+    @Name("game.Tick")
+    @Label("Tick")
+    @Category("Dungeon Crawler")
+    public static class TickEvent extends Event {
+        @Label("Tick")
+        public long tick;
+    }
+
+    @Name("game.Paint")
+    @Label("Paint")
+    @Category("Dungeon Crawler")
+    public static class PaintEvent extends Event {
+        @Label("Pixels")
+        public long pixels;
+    }
+
+    @Name("game.Path")
+    @Label("Path Search")
+    @Category("Dungeon Crawler")
+    public static class PathEvent extends Event {
+        @Label("Search")
+        public String search;
+        @Label("Nodes Expanded")
+        public int expanded;
+    }
+
+    @Name("game.Route")
+    @Label("Route Plan")
+    @Category("Dungeon Crawler")
+    public static class RouteEvent extends Event {
+        @Label("Rooms Searched")
+        public int rooms;
+    }
+
+    @Name("game.Generation")
+    @Label("Generation")
+    @Category("Dungeon Crawler")
+    public static class GenerationEvent extends Event {
+        @Label("Rooms")
+        public int rooms;
+        @Label("Rooms Repaired")
+        public int repaired;
+    }
+
+    public static String report(){
+        double seconds = (System.nanoTime() - START) / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("metrics after %.1f s%n", seconds));
+        for (Histogram histogram : new Histogram[]{TICK, PAINT, PATH, ROUTE, GENERATION, ASSETS}){
+            out.append(histogram.summary()).append(System.lineSeparator());
+        }
+        out.append(String.format("frames %d (%.1f/s), nodes expanded %d, rooms generated %d (%d repaired)%n",
+                FRAMES.sum(), FRAMES.sum() / seconds, NODES_EXPANDED.sum(), ROOMS_GENERATED.sum(),
+                ROOMS_REPAIRED.sum()));
+        return out.toString();
+    }
+
+    // starts rewriting -Ddungeon.metricsFile every DUMP_SECONDS on a daemon
+    // thread, if it is set. does nothing the second time
+    public static synchronized void startDumping(){
+        String file = System.getProperty("dungeon.metricsFile");
+        if (file == null || dumper != null){
+            return;
+        }
+        Path target = Paths.get(file);
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(target), DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(target)));
+    }
+
+    // written next to the target and moved over it, so a reader never sees half a report
+    private static void dump(Path target){
+        try {
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(temporary, report().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exc) {
+            System.out.println("Error writing metrics: " + exc.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package game;
+
+import java.util.ArrayList;
+
+// the player's movement over time, driven by the world's tick: the path they
+// are following and how far through the current step they are. the path is
+// copied into arrays that are kept from one path to the next, so replacing it
+// doesn't allocate once they are big enough. each step takes STEP_TICKS ticks
+// to glide from the old tile to the new one, the player's logical tile changes
+// as soon as the step starts
+public class Movement {
+
+    // how many ticks a step from one tile to the next takes
+    public static final int STEP_TICKS = 8;
+
+    private int[] pathX = new int[64];
+    private int[] pathY = new int[64];
+    private int length;
+    // the next node of the path to step onto
+    private int index;
+    private int countdown;
+
+    // where the current step started, in tiles, and how many ticks into it we are
+    private double fromX;
+    private double fromY;
+    private int stepTicks = STEP_TICKS;
+
+    public boolean isFollowing(){
+        return length > 0;
+    }
+
+    // starts following the path from the given node, replacing any path being followed
+    public void follow(ArrayList<Node> path, int startIndex){
+        if (path.size() > pathX.length){
+            int capacity = Math.max(path.size(), pathX.length * 2);
+            pathX = new int[capacity];
+            pathY = new int[capacity];
+        }
+        for (int i = 0; i < path.size(); i++){
+            Node node = path.get(i);
+            pathX[i] = node.x;
+            pathY[i] = node.y;
+        }
+        length = path.size();
+        index = startIndex;
+        // take the first step on the next tick
+        countdown = 1;
+    }
+
+    public void stop(){
+        length = 0;
+        index = 0;
+    }
+
+    // counts down to the next step, true on the tick it is due
+    boolean stepDue(){
+        return isFollowing() && --countdown <= 0;
+    }
+
+    boolean hasNext(){
+        return index < length;
+    }
+
+    int nextX(){
+        return pathX[index];
+    }
+
+    int nextY(){
+        return pathY[index];
+    }
+
+    // moves on to the following node, the step after it is due in STEP_TICKS
+    void advance(){
+        index++;
+        countdown = STEP_TICKS;
+    }
+
+    // puts off the next step for the given number of ticks
+    void pause(int ticks){
+        countdown = ticks;
+    }
+
+    // starts drawing a step from wherever the player is drawn right now, so a
+    // step that interrupts another carries on smoothly from mid-glide
+    void beginStep(int oldX, int oldY){
+        double progress = progress(0);
+        fromX = fromX + (oldX - fromX) * progress;
+        fromY = fromY + (oldY - fromY) * progress;
+        stepTicks = 0;
+    }
+
+    // jumps straight to a tile, like coming out of a door on the far side of the next room
+    void snap(int x, int y){
+        fromX = x;
+        fromY = y;
+        stepTicks = STEP_TICKS;
+    }
+
+    void tick(){
+        if (stepTicks < STEP_TICKS){
+            stepTicks++;
+        }
+    }
+
+    public boolean isGliding(){
+        return stepTicks < STEP_TICKS;
+    }
+
+    // how far through the current step, alpha being how far into the next tick
+    // the frame is drawn (0 to 1)
+    private double progress(double alpha){
+        return Math.min(1, (stepTicks + alpha) / STEP_TICKS);
+    }
+
+    // where to draw something standing on (x, y), in tiles
+    public double drawX(int x, double alpha){
+        return fromX + (x - fromX) * progress(alpha);
+    }
+
+    public double drawY(int y, double alpha){
+        return fromY + (y - fromY) * progress(alpha);
+    }
+}
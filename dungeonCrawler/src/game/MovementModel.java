@@ -0,0 +1,24 @@
+package game;
+
+// how a search may move between tiles and what each step costs. costs are in
+// tenths of a straight step so diagonals can cost 14 and still be whole numbers.
+// the estimate must never be more than the real cost to the goal, and must
+// never drop by more than a step costs from one tile to the next, so A* can
+// close every node the first time it is taken off the open list
+public interface MovementModel {
+
+    MovementModel MANHATTAN = new ManhattanMovement();
+    MovementModel OCTILE = new OctileMovement();
+
+    String name();
+
+    // the steps that may be tried from any tile, as {dx, dy}
+    int[][] moves();
+
+    // the cost of stepping from (x, y) by (dx, dy) onto a walkable tile, or -1
+    // if this model doesn't allow that step
+    int cost(Room room, int x, int y, int dx, int dy);
+
+    // a lower bound on the cost from one tile to another
+    int estimate(int x1, int y1, int x2, int y2);
+}
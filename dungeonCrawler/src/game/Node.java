@@ -1,23 +1,13 @@
 package game;
 
+// a single step on a path found by the pathfinder
 public class Node {
     int x;
     int y;
-    int value;
-    int g = (int) Double.POSITIVE_INFINITY;
-    int h;
-    int f;
-    Boolean start = false;
-    Boolean end = false;
-    Boolean inOpen = false;
-    Boolean inClosed = false;
 
-    Node cameFrom = null;
-
-    public Node(int xIn, int yIn, int valueIn){
+    public Node(int xIn, int yIn){
         x = xIn;
         y = yIn;
-        value = valueIn;
     }
 
 }
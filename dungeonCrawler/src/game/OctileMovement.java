@@ -0,0 +1,37 @@
+package game;
+
+import static game.Dungeon.*;
+
+// the four straight moves plus diagonals, which cost 14 against 10 for a
+// straight step. a diagonal can't cut the corner of a wall, both tiles it
+// passes between have to be walkable
+public class OctileMovement implements MovementModel {
+
+    private static final int[][] MOVES = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    @Override
+    public String name(){
+        return "octile";
+    }
+
+    @Override
+    public int[][] moves(){
+        return MOVES;
+    }
+
+    @Override
+    public int cost(Room room, int x, int y, int dx, int dy){
+        if (dx == 0 || dy == 0){
+            return 10;
+        }
+        // the target tile is in the room, so both corner tiles are too
+        return room.isWalkable(x + dx, y) && room.isWalkable(x, y + dy) ? 14 : -1;
+    }
+
+    @Override
+    public int estimate(int x1, int y1, int x2, int y2){
+        int xDistance = Math.abs(x1 - x2);
+        int yDistance = Math.abs(y1 - y2);
+        return 10 * Math.max(xDistance, yDistance) + 4 * Math.min(xDistance, yDistance);
+    }
+}
@@ -0,0 +1,292 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+// answers path requests within a room, reusing earlier work where it can:
+// - a recent request for the same room, start and goal comes out of a small
+//   cache, whose entries go stale as soon as the room's tiles change
+// - if the goal is unchanged and the player is standing on the last path
+//   (they're part way along it), the rest of that path is still the shortest
+// - if the start is unchanged and only the goal moved, the last search tree
+//   is picked up where it stopped instead of searching again from nothing
+// - a goal in another part of the room than the start, cut off by walls, is
+//   turned down straight away from the room's connected areas, no search needed
+// the search itself is plain A* or jump point search, see SearchMode. only the
+// A* tree can be picked up again, jump point search doesn't keep one worth resuming
+public class PathService {
+
+    // how many recent paths to keep, override with -Ddungeon.pathCache=N
+    public static final int CAPACITY = Integer.getInteger("dungeon.pathCache", 64);
+
+    // counters since the service was made
+    public long requests;
+    public long cacheHits;
+    public long suffixReuses;
+    public long treeReuses;
+    // requests turned down because the goal can't be reached from the start
+    public long rejected;
+    public long expanded;
+    // expansions a search from scratch would have repeated, for the work that was reused
+    public long savedExpansions;
+
+    // stats for the last request only
+    public int lastExpanded;
+    public long lastNanos;
+    // whether the last request was called off part way, see setCancelled()
+    public boolean lastCancelled;
+
+    private static class Key {
+        final Room room;
+        final int start;
+        final int goal;
+
+        Key(Room roomIn, int startIn, int goalIn){
+            room = roomIn;
+            start = startIn;
+            goal = goalIn;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return room == key.room && start == key.start && goal == key.goal;
+        }
+
+        @Override
+        public int hashCode(){
+            return (System.identityHashCode(room) * 31 + start) * 31 + goal;
+        }
+    }
+
+    private static class Entry {
+        final int version;
+        final ArrayList<Node> path;
+        final int expanded;
+
+        Entry(int versionIn, ArrayList<Node> pathIn, int expandedIn){
+            version = versionIn;
+            path = pathIn;
+            expanded = expandedIn;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest){
+            return size() > CAPACITY;
+        }
+    };
+
+    private SearchMode mode = SearchMode.fromProperty();
+    private BooleanSupplier cancelled = Pathfinder.NEVER;
+
+    // A* searches use the movement model and weight from
+    // -Ddungeon.movement=manhattan|octile|weighted and -Ddungeon.searchWeight=W,
+    // jump point search always moves the way its mode says
+    private final Pathfinder pathfinder = new Pathfinder(movementFromProperty(),
+            Double.parseDouble(System.getProperty("dungeon.searchWeight", "1")));
+    private final JumpPointSearch jps = new JumpPointSearch(false);
+    private final JumpPointSearch jpsDiagonal = new JumpPointSearch(true);
+    // owned by the service rather than shared per thread, since the tree left
+    // in it after a search is what later requests pick up from
+    private final SearchWorkspace workspace = new SearchWorkspace();
+    // what the search tree in the workspace was grown for
+    private Room treeRoom;
+    private int treeVersion;
+    private int treeStart = -1;
+    private int treeExpanded;
+
+    // the last path handed out, for suffix reuse
+    private Room lastRoom;
+    private int lastVersion;
+    private int lastGoal = -1;
+    private ArrayList<Node> lastPath;
+    private int lastPathExpanded;
+
+    public ArrayList<Node> find(Room room, int startX, int startY, int endX, int endY){
+        Metrics.PathEvent event = new Metrics.PathEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        requests++;
+        lastExpanded = 0;
+        lastCancelled = false;
+        try {
+            if (!room.contains(endX, endY)){
+                return null;
+            }
+            if (room.isWalkable(startX, startY) && !room.connected(startX, startY, endX, endY)){
+                rejected++;
+                return null;
+            }
+            int start = startY * room.width + startX;
+            int goal = endY * room.width + endX;
+
+            Key key = new Key(room, start, goal);
+            Entry entry = cache.get(key);
+            if (entry != null){
+                if (entry.version == room.version){
+                    cacheHits++;
+                    savedExpansions += entry.expanded;
+                    return remember(room, goal, entry.path, entry.expanded);
+                }
+                // the room changed since, and with it possibly the path
+                cache.remove(key);
+            }
+
+            ArrayList<Node> path = suffix(room, startX, startY, goal);
+            if (path != null){
+                suffixReuses++;
+                savedExpansions += lastPathExpanded;
+                cache.put(key, new Entry(room.version, path, lastPathExpanded));
+                return remember(room, goal, path, lastPathExpanded);
+            }
+
+            // rooms too big for jump tables are searched with A*, whatever the mode
+            if (mode != SearchMode.ASTAR && JumpPointSearch.handles(room)){
+                JumpPointSearch search = mode == SearchMode.JPS ? jps : jpsDiagonal;
+                path = search.find(room, startX, startY, endX, endY);
+                lastExpanded = search.expanded;
+                expanded += search.expanded;
+                if (path == null && cancelled.getAsBoolean()){
+                    lastCancelled = true;
+                    return null;
+                }
+                cache.put(key, new Entry(room.version, path, search.expanded));
+                return remember(room, goal, path, search.expanded);
+            }
+
+            // a weighted search tree doesn't hold shortest distances, so it isn't resumed
+            if (room == treeRoom && room.version == treeVersion && start == treeStart && pathfinder.weight == 1){
+                treeReuses++;
+                savedExpansions += treeExpanded;
+                path = pathfinder.resume(workspace, room, endX, endY);
+            }
+            else {
+                path = pathfinder.find(workspace, room, startX, startY, endX, endY);
+                treeRoom = room;
+                treeVersion = room.version;
+                treeStart = start;
+                treeExpanded = 0;
+            }
+            treeExpanded += pathfinder.expanded;
+            lastExpanded = pathfinder.expanded;
+            expanded += pathfinder.expanded;
+            if (path == null && cancelled.getAsBoolean()){
+                // the tree stopped part way, and a cancelled search isn't an answer worth keeping
+                treeRoom = null;
+                lastCancelled = true;
+                return null;
+            }
+
+            // the cost of a from-scratch search is roughly the whole tree it needed
+            cache.put(key, new Entry(room.version, path, treeExpanded));
+            return remember(room, goal, path, treeExpanded);
+        } finally {
+            lastNanos = System.nanoTime() - startTime;
+            Metrics.PATH.record(lastNanos);
+            Metrics.NODES_EXPANDED.add(lastExpanded);
+            event.search = mode.name;
+            event.expanded = lastExpanded;
+            event.commit();
+        }
+    }
+
+    public SearchMode mode(){
+        return mode;
+    }
+
+    // paths found in another mode may take steps this one can't, so nothing
+    // remembered is kept across a switch
+    public void setMode(SearchMode modeIn){
+        if (modeIn == mode){
+            return;
+        }
+        mode = modeIn;
+        cache.clear();
+        lastPath = null;
+        treeRoom = null;
+    }
+
+    // searches give up and return null once this says true, for callers on
+    // another thread that want to call a search off
+    public void setCancelled(BooleanSupplier cancelledIn){
+        cancelled = cancelledIn;
+        pathfinder.cancelled = cancelledIn;
+        jps.cancelled = cancelledIn;
+        jpsDiagonal.cancelled = cancelledIn;
+    }
+
+    public MovementModel movement(){
+        return pathfinder.model;
+    }
+
+    public void setMovement(MovementModel model, double weight){
+        if (model == pathfinder.model && weight == pathfinder.weight){
+            return;
+        }
+        pathfinder.model = model;
+        pathfinder.weight = weight;
+        cache.clear();
+        lastPath = null;
+        treeRoom = null;
+    }
+
+    public double hitRate(){
+        return requests == 0 ? 0 : (double) (cacheHits + suffixReuses + treeReuses) / requests;
+    }
+
+    public String stats(){
+        String search = mode == SearchMode.ASTAR ? pathfinder.model.name()
+                + (pathfinder.weight == 1 ? "" : " x" + pathfinder.weight) : mode.name;
+        return "paths (" + search + "): " + requests + " requests, " + cacheHits + " cache hits, " + suffixReuses + " suffix reuses, "
+                + treeReuses + " tree reuses (" + Math.round(hitRate() * 100) + "% reused), " + rejected + " unreachable, "
+                + expanded + " expanded, " + savedExpansions + " expansions saved";
+    }
+
+    private static MovementModel movementFromProperty(){
+        String property = System.getProperty("dungeon.movement", "manhattan");
+        switch (property){
+            case "octile":
+                return MovementModel.OCTILE;
+            case "weighted":
+                return WeightedMovement.DOORS_SLOW;
+            case "manhattan":
+                return MovementModel.MANHATTAN;
+            default:
+                System.out.println("unknown movement " + property + ", using manhattan");
+                return MovementModel.MANHATTAN;
+        }
+    }
+
+    // the rest of the last path, if it went to the same goal in the same
+    // unchanged room and the start is somewhere along it
+    private ArrayList<Node> suffix(Room room, int startX, int startY, int goal){
+        if (lastPath == null || room != lastRoom || room.version != lastVersion || goal != lastGoal){
+            return null;
+        }
+        for (int i = 0; i < lastPath.size(); i++){
+            Node node = lastPath.get(i);
+            if (node.x == startX && node.y == startY){
+                return new ArrayList<>(lastPath.subList(i, lastPath.size()));
+            }
+        }
+        return null;
+    }
+
+    private ArrayList<Node> remember(Room room, int goal, ArrayList<Node> path, int pathExpanded){
+        if (path != null){
+            lastRoom = room;
+            lastVersion = room.version;
+            lastGoal = goal;
+            lastPath = path;
+            lastPathExpanded = pathExpanded;
+        }
+        return path;
+    }
+}
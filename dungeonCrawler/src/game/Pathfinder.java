@@ -0,0 +1,157 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+public class Pathfinder {
+
+    // how many nodes the last search took off the open list, and how long it took
+    public int expanded;
+    public long nanos;
+
+    // which steps are allowed, what they cost and how the distance to the goal is estimated
+    public MovementModel model;
+    // weighted A*: the estimate is multiplied by this, which makes the search
+    // head for the goal more greedily. paths can then come out up to this many
+    // times longer than the shortest, 1 always finds the shortest
+    public double weight;
+    // asked every so often during a search, which gives up and returns null
+    // once it says true. lets a search on another thread be called off
+    public BooleanSupplier cancelled = NEVER;
+
+    static final BooleanSupplier NEVER = () -> false;
+    // how many nodes are expanded between looking at cancelled
+    static final int CANCEL_CHECK = 256;
+
+    public Pathfinder(){
+        this(MovementModel.MANHATTAN, 1);
+    }
+
+    public Pathfinder(MovementModel modelIn, double weightIn){
+        model = modelIn;
+        weight = weightIn;
+    }
+
+    public ArrayList<Node> find(Room room, int startX, int startY, int endX, int endY){
+        return find(SearchWorkspace.current(), room, startX, startY, endX, endY);
+    }
+
+    // a fresh search that leaves its tree in the given workspace, so a later
+    // call to resume() can carry on from it
+    ArrayList<Node> find(SearchWorkspace ws, Room room, int startX, int startY, int endX, int endY){
+        long startTime = System.nanoTime();
+        expanded = 0;
+        if (!room.contains(endX, endY)){
+            nanos = System.nanoTime() - startTime;
+            return null;
+        }
+
+        ws.reset(room.tiles.length);
+        ws.open(startY * room.width + startX, 0, -1, distance(startX, startY, endX, endY));
+
+        ArrayList<Node> path = run(ws, room, endX, endY);
+        nanos = System.nanoTime() - startTime;
+        return path;
+    }
+
+    // carries on with the search tree left in the workspace, from the same
+    // start, towards a different goal. every closed node already has its
+    // shortest distance from the start, so a goal that was closed is answered
+    // straight away and otherwise only the open nodes need their f redone.
+    // that only holds with a weight of 1, weighted searches can close a node
+    // before its shortest distance is known
+    ArrayList<Node> resume(SearchWorkspace ws, Room room, int endX, int endY){
+        long startTime = System.nanoTime();
+        expanded = 0;
+        if (!room.contains(endX, endY)){
+            nanos = System.nanoTime() - startTime;
+            return null;
+        }
+
+        ArrayList<Node> path;
+        int width = room.width;
+        int end = endY * width + endX;
+        if (ws.isClosed(end)){
+            path = getPath(ws, end, width);
+        }
+        else {
+            for (int slot = 0; slot < ws.heapSize; slot++){
+                int node = ws.heap[slot];
+                ws.f[node] = ws.g[node] + distance(node % width, node / width, endX, endY);
+            }
+            ws.heapify();
+            path = run(ws, room, endX, endY);
+        }
+        nanos = System.nanoTime() - startTime;
+        return path;
+    }
+
+    private ArrayList<Node> run(SearchWorkspace ws, Room room, int endX, int endY){
+        int width = room.width;
+        int end = endY * width + endX;
+        while (ws.heapSize > 0){
+            // Take the node with the lowest f score off the heap and close it
+            int current = ws.pop();
+            ws.close(current);
+            expanded++;
+            if (expanded % CANCEL_CHECK == 0 && cancelled.getAsBoolean()){
+                return null;
+            }
+
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] move : model.moves()){
+                int nx = cx + move[0];
+                int ny = cy + move[1];
+                if (!room.contains(nx, ny) || !room.isWalkable(nx, ny)){
+                    continue;
+                }
+                int neighbour = ny * width + nx;
+                if (ws.isClosed(neighbour)){
+                    continue;
+                }
+                int cost = model.cost(room, cx, cy, move[0], move[1]);
+                if (cost < 0){
+                    continue;
+                }
+
+                int tentativeG = ws.g[current] + cost;
+                if (!ws.isSeen(neighbour)){
+                    ws.open(neighbour, tentativeG, current, distance(nx, ny, endX, endY));
+                }
+                else if (tentativeG < ws.g[neighbour]){
+                    ws.decrease(neighbour, tentativeG, current);
+                }
+            }
+
+            // the goal's neighbours are still opened above, so every closed node
+            // has been expanded and resume() can trust the open list
+            if (current == end){
+                return getPath(ws, current, width);
+            }
+        }
+
+        return null; // No path found
+    }
+
+    private int distance(int x1, int y1, int x2, int y2){
+        int estimate = model.estimate(x1, y1, x2, y2);
+        return weight == 1 ? estimate : (int) (estimate * weight);
+    }
+
+    private ArrayList<Node> getPath(SearchWorkspace ws, int end, int width){
+        // count the steps first so the list is filled back to front without reversing
+        int length = 0;
+        for (int node = end; node != -1; node = ws.cameFrom[node]){
+            length++;
+        }
+
+        Node[] steps = new Node[length];
+        int i = length;
+        for (int node = end; node != -1; node = ws.cameFrom[node]){
+            steps[--i] = new Node(node % width, node / width);
+        }
+        return new ArrayList<>(Arrays.asList(steps));
+    }
+}
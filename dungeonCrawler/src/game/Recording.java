@@ -0,0 +1,257 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+// a log of everything that changes a world from outside its ticks: the seed
+// and settings it was made with, every input stamped with the tick it came in
+// after, and the tick each background path search was handed back on. the
+// world does the same thing every tick given the same inputs, so this is
+// enough for a Replay to play a whole session back exactly.
+//
+// the file, big endian as DataOutputStream writes it:
+//   header    magic "DREC", format version, seed, then the -D settings that
+//             change how the world plays as name/value pairs
+//   events    a type byte, the ticks since the previous event, then the
+//             event's numbers, all as variable length ints so most take a byte
+//   end       an END event with a fingerprint of the final state
+// record with -Ddungeon.record=FILE
+public class Recording {
+
+    public static final int MAGIC = 0x44524543; // "DREC"
+    public static final int FORMAT_VERSION = 1;
+
+    // the settings a replay has to match, anything that changes generation,
+    // the monsters or the paths found
+    public static final String[] SETTINGS = {
+            "dungeon.rooms", "dungeon.streaming", "dungeon.streamRadius", "dungeon.roomWidth", "dungeon.roomHeight",
+            "dungeon.monsters", "dungeon.chaseRange", "dungeon.search", "dungeon.movement", "dungeon.searchWeight",
+            "dungeon.pathCache"
+    };
+
+    // event types
+    public static final int STEP = 0;
+    public static final int CLICK = 1;
+    public static final int MOVE_TO = 2;
+    public static final int TRAVEL = 3;
+    public static final int SEARCH_MODE = 4;
+    public static final int PATH = 5;
+    public static final int CHECK = 6;
+    public static final int END = 7;
+
+    // ticks between fingerprints of the state, so a replay that goes wrong
+    // says roughly when. the file is flushed at each one as well
+    public static final int CHECK_TICKS = 1024;
+
+    public final Path path;
+    private final DataOutputStream out;
+    private long lastTick;
+    private boolean closed;
+
+    private Recording(Path pathIn, long seed) throws IOException {
+        path = pathIn;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(seed);
+        out.writeByte(SETTINGS.length);
+        for (String name : SETTINGS){
+            String value = System.getProperty(name);
+            out.writeUTF(name);
+            // an empty value for a setting left at its default
+            out.writeUTF(value == null ? "" : value);
+        }
+    }
+
+    // starts recording the world to -Ddungeon.record=FILE if it is set. the
+    // recording is finished when the program exits. returns null if it isn't set
+    public static Recording fromProperty(World world){
+        String target = System.getProperty("dungeon.record");
+        if (target == null){
+            return null;
+        }
+        if (world.dungeon instanceof DungeonFile){
+            // a replay starts from the seed, not from where a save left off
+            System.out.println("Error starting recording: a game loaded from a save can't be recorded");
+            return null;
+        }
+        try {
+            Recording recording = new Recording(Paths.get(target), world.dungeon.seed());
+            world.recording = recording;
+            // exiting from the window blocks the event thread, so no tick runs while this does
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> recording.close(world), "recording"));
+            System.out.println("recording to " + target);
+            return recording;
+        } catch (IOException exc){
+            System.out.println("Error starting recording: " + exc.getMessage());
+            return null;
+        }
+    }
+
+    public void step(long tick, int dx, int dy){
+        event(STEP, tick);
+        writeInt(dx);
+        writeInt(dy);
+    }
+
+    public void click(long tick, int x, int y){
+        event(CLICK, tick);
+        writeInt(x);
+        writeInt(y);
+    }
+
+    public void moveTo(long tick, int x, int y){
+        event(MOVE_TO, tick);
+        writeInt(x);
+        writeInt(y);
+    }
+
+    public void travel(long tick, Room room, int x, int y){
+        event(TRAVEL, tick);
+        writeInt(room.x);
+        writeInt(room.y);
+        writeInt(x);
+        writeInt(y);
+    }
+
+    public void searchMode(long tick, SearchMode mode){
+        event(SEARCH_MODE, tick);
+        writeInt(mode.ordinal());
+    }
+
+    // a path search handed back on the given tick, null if it found nothing.
+    // the path itself is kept rather than searched for again on replay, where
+    // the search could find a different path of the same length
+    public void path(long tick, ArrayList<Node> found){
+        event(PATH, tick);
+        if (found == null){
+            writeInt(-1);
+            return;
+        }
+        writeInt(found.size());
+        int x = 0;
+        int y = 0;
+        // each tile as the step from the one before, which is a byte or two
+        for (Node node : found){
+            writeInt(node.x - x);
+            writeInt(node.y - y);
+            x = node.x;
+            y = node.y;
+        }
+    }
+
+    public void check(long tick, long state){
+        event(CHECK, tick);
+        writeLong(state);
+        flush();
+    }
+
+    // writes the end of the recording, later events are ignored
+    public synchronized void close(World world){
+        if (closed){
+            return;
+        }
+        event(END, world.ticks);
+        writeLong(world.stateHash());
+        closed = true;
+        try {
+            out.close();
+            System.out.println("recorded " + world.ticks + " ticks to " + path);
+        } catch (IOException exc){
+            System.out.println("Error finishing recording: " + exc.getMessage());
+        }
+    }
+
+    private void event(int type, long tick){
+        if (closed){
+            return;
+        }
+        try {
+            out.writeByte(type);
+        } catch (IOException exc){
+            failed(exc);
+        }
+        writeLong(tick - lastTick);
+        lastTick = tick;
+    }
+
+    private void writeInt(int value){
+        writeLong(value);
+    }
+
+    // zigzag then seven bits a byte, low bits first, so small numbers of either sign are short
+    private void writeLong(long value){
+        if (closed){
+            return;
+        }
+        long zigzag = (value << 1) ^ (value >> 63);
+        try {
+            while ((zigzag & ~0x7fL) != 0){
+                out.writeByte((int) (zigzag & 0x7f) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        } catch (IOException exc){
+            failed(exc);
+        }
+    }
+
+    static long readLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7){
+            if (shift > 63){
+                throw new IOException("bad number in recording");
+            }
+            int next = in.readUnsignedByte();
+            zigzag |= (long) (next & 0x7f) << shift;
+            if ((next & 0x80) == 0){
+                break;
+            }
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    static int readInt(DataInputStream in) throws IOException {
+        return (int) readLong(in);
+    }
+
+    private void flush(){
+        try {
+            out.flush();
+        } catch (IOException exc){
+            failed(exc);
+        }
+    }
+
+    // a disk error stops the recording rather than the game
+    private void failed(IOException exc){
+        System.out.println("Error writing recording: " + exc.getMessage());
+        closed = true;
+    }
+
+    // reads the header of a recording, returning the settings it was made with
+    static LinkedHashMap<String, String> readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC){
+            throw new IOException(path + " is not a recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION){
+            throw new IOException(path + " is format version " + version + ", only "
+                    + FORMAT_VERSION + " can be read");
+        }
+        LinkedHashMap<String, String> settings = new LinkedHashMap<>();
+        settings.put("dungeon.seed", Long.toString(in.readLong()));
+        int count = in.readUnsignedByte();
+        for (int i = 0; i < count; i++){
+            settings.put(in.readUTF(), in.readUTF());
+        }
+        return settings;
+    }
+}
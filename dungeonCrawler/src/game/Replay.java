@@ -0,0 +1,209 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// plays a Recording back into a fresh world. before each tick it hands the
+// world whatever input the recording says came in at that point, and the
+// paths the pathfinder thread handed back, so the world goes through the same
+// ticks it did when it was recorded. the board plays one back in real time
+// with -Ddungeon.replay=FILE, or run it headless as fast as it will go with:
+// java game.Replay FILE
+public class Replay {
+
+    public final Path path;
+    public final long seed;
+    private final DataInputStream in;
+
+    // the next event, read ahead so it can wait for its tick
+    private int nextType;
+    private long nextTick;
+
+    // set once the END event has been reached, or the file ran out
+    public boolean finished;
+    // the first tick the world's state didn't match the recording's, -1 while it does
+    public long divergedAt = -1;
+
+    private Replay(Path pathIn, DataInputStream inIn, long seedIn) throws IOException {
+        path = pathIn;
+        in = inIn;
+        seed = seedIn;
+        readNext();
+    }
+
+    // opens a recording and puts the settings it was made with in place. call
+    // it before anything reads them, before a Dungeon or World is made
+    public static Replay open(Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        try {
+            LinkedHashMap<String, String> settings = Recording.readHeader(in, path);
+            long seed = Long.parseLong(settings.remove("dungeon.seed"));
+            for (Map.Entry<String, String> setting : settings.entrySet()){
+                String current = System.getProperty(setting.getKey(), "");
+                if (!current.equals(setting.getValue())){
+                    System.out.println("replay uses -D" + setting.getKey() + "=" + setting.getValue()
+                            + " as recorded, not " + (current.isEmpty() ? "the default" : current));
+                }
+                if (setting.getValue().isEmpty()){
+                    System.clearProperty(setting.getKey());
+                }
+                else {
+                    System.setProperty(setting.getKey(), setting.getValue());
+                }
+            }
+            return new Replay(path, in, seed);
+        } catch (IOException | RuntimeException exc){
+            in.close();
+            throw exc;
+        }
+    }
+
+    // the world the recording started from, made the same way the board makes it
+    public World createWorld(){
+        World world = new World(Dungeon.create(seed), new Random(seed));
+        world.replaying = true;
+        return world;
+    }
+
+    // applies everything due before the world's next tick
+    public void feed(World world){
+        try {
+            while (!finished && due(world)){
+                apply(world);
+                if (!finished){
+                    readNext();
+                }
+            }
+        } catch (EOFException exc){
+            // a recording cut short by a crash plays back as far as it got
+            System.out.println("recording ends early at tick " + world.ticks);
+            finish();
+        } catch (IOException exc){
+            System.out.println("Error reading recording: " + exc.getMessage());
+            finish();
+        }
+    }
+
+    private boolean due(World world){
+        // a path is handed back at the start of the tick it was recorded on,
+        // everything else came in after the tick it was stamped with
+        return nextType == Recording.PATH ? nextTick <= world.ticks + 1 : nextTick <= world.ticks;
+    }
+
+    private void apply(World world) throws IOException {
+        switch (nextType){
+            case Recording.STEP:
+                world.movePlayer(Recording.readInt(in), Recording.readInt(in));
+                break;
+            case Recording.CLICK:
+                world.requestMoveTo(Recording.readInt(in), Recording.readInt(in), null);
+                break;
+            case Recording.MOVE_TO:
+                world.moveTo(Recording.readInt(in), Recording.readInt(in));
+                break;
+            case Recording.TRAVEL: {
+                Room room = world.dungeon.getRoom(Recording.readInt(in), Recording.readInt(in));
+                int x = Recording.readInt(in);
+                int y = Recording.readInt(in);
+                if (room != null){
+                    world.travelTo(room, x, y);
+                }
+                break;
+            }
+            case Recording.SEARCH_MODE:
+                world.setSearchMode(SearchMode.values()[Recording.readInt(in)]);
+                break;
+            case Recording.PATH:
+                world.deliverPath(readPath());
+                break;
+            case Recording.CHECK:
+                check(world, Recording.readLong(in));
+                break;
+            case Recording.END:
+                check(world, Recording.readLong(in));
+                System.out.println("replay finished at tick " + world.ticks + (divergedAt < 0
+                        ? ", matching the recording" : ", but it stopped matching the recording by tick " + divergedAt));
+                finish();
+                break;
+            default:
+                throw new IOException("unknown event " + nextType + " in " + path);
+        }
+    }
+
+    private void check(World world, long recorded){
+        if (divergedAt < 0 && world.stateHash() != recorded){
+            divergedAt = world.ticks;
+            System.out.println("replay no longer matches the recording at tick " + world.ticks);
+        }
+    }
+
+    private ArrayList<Node> readPath() throws IOException {
+        int size = Recording.readInt(in);
+        if (size < 0){
+            return null;
+        }
+        ArrayList<Node> found = new ArrayList<>(size);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < size; i++){
+            x += Recording.readInt(in);
+            y += Recording.readInt(in);
+            found.add(new Node(x, y));
+        }
+        return found;
+    }
+
+    private void readNext() throws IOException {
+        nextType = in.readUnsignedByte();
+        nextTick += Recording.readLong(in);
+    }
+
+    private void finish(){
+        finished = true;
+        try {
+            in.close();
+        } catch (IOException exc){
+            System.out.println("Error closing recording: " + exc.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1){
+            System.out.println("usage: java game.Replay FILE");
+            return;
+        }
+        Replay replay = Replay.open(Paths.get(args[0]));
+        World world = replay.createWorld();
+        Simulation simulation = new Simulation(world);
+        simulation.replay = replay;
+
+        long start = System.nanoTime();
+        while (true){
+            // fed here as well as by step() so the last tick recorded is the last one run
+            replay.feed(world);
+            if (replay.finished){
+                break;
+            }
+            simulation.step();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("seed:          " + replay.seed);
+        System.out.println("ticks:         " + world.ticks + ", " + world.ticks * Simulation.TICK_MILLIS / 1000 + " s of play");
+        System.out.println("time:          " + elapsed / 1_000_000 + " ms");
+        System.out.println("ticks/s:       " + (long) (world.ticks / (elapsed / 1e9)));
+        System.out.println("player:        room " + world.currentRoom.x + "," + world.currentRoom.y
+                + " tile " + world.playerX + "," + world.playerY);
+        System.out.println(replay.divergedAt < 0 ? "matches the recording"
+                : "stopped matching the recording by tick " + replay.divergedAt);
+    }
+}
@@ -1,15 +1,128 @@
 package game;
 
+import java.util.function.IntUnaryOperator;
+
+import static game.Dungeon.*;
+
 public class Room {
+    // random guesses at a floor tile before randomFloor() picks among them instead
+    private static final int FLOOR_GUESSES = 64;
+
     public int x;
     public int y;
+    // size of the room in tiles, COLUMNS by ROWS unless the dungeon was made with other sizes
+    public final int width;
+    public final int height;
+
+    // tile values laid out row by row, indexed by y * width + x.
+    // 0 is floor, 1 is wall and 2 is a door
+    public final byte[] tiles;
 
-    public Node[][] board;
+    // bumped on every tile change so anything derived from the tiles (like the
+    // board's cached background) can tell it is stale
+    public int version;
+
+    // the connected area of every tile and the version it was worked out for, see components()
+    private int[] components;
+    private int componentsVersion;
+
+    public Room(byte[] tilesIn, int xIn, int yIn){
+        this(tilesIn, xIn, yIn, COLUMNS, ROWS);
+    }
 
-    public Room(Node[][] boardIn, int xIn, int yIn){
-        board = boardIn;
+    public Room(byte[] tilesIn, int xIn, int yIn, int widthIn, int heightIn){
+        tiles = tilesIn;
         x = xIn;
         y = yIn;
+        width = widthIn;
+        height = heightIn;
+    }
+
+    public int get(int col, int row){
+        return tiles[row * width + col];
+    }
+
+    public void set(int col, int row, int value){
+        tiles[row * width + col] = (byte) value;
+        version++;
+    }
+
+    public boolean isWalkable(int col, int row){
+        int value = tiles[row * width + col];
+        return value == 0 || value == 2;
+    }
+
+    // labels every tile with the connected area of walkable tiles it is in,
+    // -1 for walls. worked out on first use after the tiles change, into a new
+    // array each time, so one handed out never changes under its holder
+    public int[] components(){
+        if (components == null || componentsVersion != version){
+            int[] labels = new int[tiles.length];
+            Connectivity.label(this, labels);
+            components = labels;
+            componentsVersion = version;
+        }
+        return components;
+    }
+
+    // whether one tile can be walked to from another, without searching
+    public boolean connected(int fromCol, int fromRow, int toCol, int toRow){
+        int[] labels = components();
+        int area = labels[fromRow * width + fromCol];
+        return area >= 0 && area == labels[toRow * width + toCol];
+    }
+
+    // a copy of the tiles, for another thread to read while these change
+    public Room snapshot(){
+        Room copy = new Room(tiles.clone(), x, y, width, height);
+        copy.version = version;
+        copy.components = components();
+        copy.componentsVersion = version;
+        return copy;
+    }
+
+    // a random plain floor tile as y * width + x, or -1 if there is none.
+    // nextInt(bound) rolls a column and then a row until they land on floor,
+    // and after FLOOR_GUESSES misses one of the floor tiles is picked instead,
+    // so a room that is nearly or entirely wall can't keep it rolling forever
+    public int randomFloor(IntUnaryOperator nextInt){
+        for (int guess = 0; guess < FLOOR_GUESSES; guess++){
+            int col = nextInt.applyAsInt(width);
+            int row = nextInt.applyAsInt(height);
+            if (get(col, row) == 0){
+                return row * width + col;
+            }
+        }
+        int floor = 0;
+        for (byte tile : tiles){
+            if (tile == 0){
+                floor++;
+            }
+        }
+        if (floor == 0){
+            return -1;
+        }
+        int pick = nextInt.applyAsInt(floor);
+        for (int i = 0; ; i++){
+            if (tiles[i] == 0 && pick-- == 0){
+                return i;
+            }
+        }
+    }
+
+    public boolean contains(int col, int row){
+        return col >= 0 && col < width && row >= 0 && row < height;
+    }
+
+    // where someone comes out in this room after stepping dx, dy through a door
+    // at (col, row) of the room next to it. doors sit in the middle of each
+    // side, so a position along the side is kept relative to the middle
+    public int entryX(Room from, int col, int dx){
+        return dx > 0 ? 0 : dx < 0 ? width - 1 : col - from.width / 2 + width / 2;
+    }
+
+    public int entryY(Room from, int row, int dy){
+        return dy > 0 ? 0 : dy < 0 ? height - 1 : row - from.height / 2 + height / 2;
     }
 
 }
@@ -0,0 +1,126 @@
+package game;
+
+import java.util.Arrays;
+
+// maps room coordinates to rooms with open addressing over a primitive long
+// key, so looking a room up never walks the room list or boxes a key
+public class RoomIndex {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Room[] values;
+    private int size;
+
+    public RoomIndex(){
+        this(16);
+    }
+
+    public RoomIndex(int expected){
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new Room[capacity];
+    }
+
+    public static long key(int x, int y){
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public Room get(int x, int y){
+        long key = key(x, y);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask){
+            if (keys[slot] == key){
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(int x, int y){
+        return get(x, y) != null;
+    }
+
+    public void put(Room room){
+        if (size + 1 > keys.length * LOAD_FACTOR){
+            grow();
+        }
+        if (insert(key(room.x, room.y), room)){
+            size++;
+        }
+    }
+
+    public Room remove(int x, int y){
+        long key = key(x, y);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key){
+            slot = (slot + 1) & mask;
+        }
+        Room removed = values[slot];
+        if (removed == null){
+            return null;
+        }
+
+        // backward shift deletion: pull later entries of the probe run into the hole
+        // so lookups never need tombstones
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask){
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)){
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear(){
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private boolean insert(long key, Room room){
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null){
+            if (keys[slot] == key){
+                values[slot] = room;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = room;
+        return true;
+    }
+
+    private void grow(){
+        long[] oldKeys = keys;
+        Room[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Room[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldValues[i] != null){
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key){
+        // murmur3 finalizer, neighbouring coordinates otherwise land in neighbouring slots
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
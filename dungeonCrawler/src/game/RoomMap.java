@@ -0,0 +1,99 @@
+package game;
+
+import java.awt.*;
+
+import static game.Dungeon.*;
+
+// a zoomed out view of the rooms around the player. clicking a tile on it
+// walks the player there, through whatever rooms are in between. every room
+// gets a COLUMNS by ROWS cell, rooms bigger than that show every few tiles.
+// only rooms already in memory are shown, so looking at the map never makes a
+// streaming dungeon generate rooms past its radius. the rest stay blank, as unexplored
+public class RoomMap {
+
+    // how many rooms either side of the player's room are shown
+    public static final int RADIUS = 3;
+    // size of one tile on the map in pixels
+    public static final int MAP_TILE = 8;
+
+    private static final Color WALL_COLOR = new Color(0, 0, 0);
+    private static final Color DOOR_COLOR = new Color(0, 200, 255);
+    private static final Color FLOOR_COLOR = new Color(214, 214, 214);
+    private static final Color PLAYER_COLOR = new Color(220, 40, 40);
+
+    public boolean open;
+
+    private final Board board;
+    private final World world;
+
+    public RoomMap(Board boardIn){
+        board = boardIn;
+        world = board.world;
+    }
+
+    public void draw(Graphics g){
+        g.setColor(board.getBackground());
+        g.fillRect(0, 0, board.getWidth(), board.getHeight());
+
+        Room current = world.currentRoom;
+        for (int dy = -RADIUS; dy <= RADIUS; dy++){
+            for (int dx = -RADIUS; dx <= RADIUS; dx++){
+                Room room = world.dungeon.loadedRoom(current.x + dx, current.y + dy);
+                if (room == null){
+                    continue;
+                }
+                int left = roomLeft(dx);
+                int top = roomTop(dy);
+                int stride = stride(room);
+                for (int row = 0; row * stride < room.height; row++){
+                    for (int col = 0; col * stride < room.width; col++){
+                        int value = room.get(col * stride, row * stride);
+                        g.setColor(value == 1 ? WALL_COLOR : value == 2 ? DOOR_COLOR : FLOOR_COLOR);
+                        g.fillRect(left + col * MAP_TILE, top + row * MAP_TILE, MAP_TILE, MAP_TILE);
+                    }
+                }
+            }
+        }
+
+        int stride = stride(current);
+        g.setColor(PLAYER_COLOR);
+        g.fillRect(roomLeft(0) + world.playerX / stride * MAP_TILE, roomTop(0) + world.playerY / stride * MAP_TILE,
+                MAP_TILE, MAP_TILE);
+    }
+
+    // how many tiles of the room one tile of the map stands for
+    private static int stride(Room room){
+        int across = (room.width + COLUMNS - 1) / COLUMNS;
+        int down = (room.height + ROWS - 1) / ROWS;
+        return Math.max(1, Math.max(across, down));
+    }
+
+    // walks to the room tile under the given point of the board. returns false
+    // if there is no room there, it isn't loaded or it can't be reached
+    public boolean pick(int x, int y){
+        int dx = Math.floorDiv(x - roomLeft(-RADIUS), COLUMNS * MAP_TILE) - RADIUS;
+        int dy = Math.floorDiv(y - roomTop(-RADIUS), ROWS * MAP_TILE) - RADIUS;
+        if (Math.abs(dx) > RADIUS || Math.abs(dy) > RADIUS){
+            return false;
+        }
+        Room room = world.dungeon.loadedRoom(world.currentRoom.x + dx, world.currentRoom.y + dy);
+        if (room == null){
+            return false;
+        }
+        int col = (x - roomLeft(dx)) / MAP_TILE * stride(room);
+        int row = (y - roomTop(dy)) / MAP_TILE * stride(room);
+        if (!room.contains(col, row)){
+            return false;
+        }
+        return world.travelTo(room, col, row) != null;
+    }
+
+    // the map is centred on the board, with the player's room in the middle
+    private int roomLeft(int dx){
+        return (board.getWidth() - (2 * RADIUS + 1) * COLUMNS * MAP_TILE) / 2 + (dx + RADIUS) * COLUMNS * MAP_TILE;
+    }
+
+    private int roomTop(int dy){
+        return (board.getHeight() - (2 * RADIUS + 1) * ROWS * MAP_TILE) / 2 + (dy + RADIUS) * ROWS * MAP_TILE;
+    }
+}
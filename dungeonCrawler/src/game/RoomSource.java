@@ -0,0 +1,37 @@
+package game;
+
+import java.util.function.Consumer;
+
+// where the world gets its rooms from, either a dungeon generated up front or
+// one that generates rooms as the player reaches them
+public interface RoomSource {
+
+    // the seed the rooms are generated from
+    long seed();
+
+    // the room the player starts in
+    Room startRoom();
+
+    // the room at the given coordinates, or null when there isn't one
+    Room getRoom(int x, int y);
+
+    // the room at the given coordinates if it is held in memory already, or
+    // null. unlike getRoom() it never makes a room, for searches that shouldn't
+    // generate half an endless dungeon while looking
+    default Room loadedRoom(int x, int y){
+        return getRoom(x, y);
+    }
+
+    // how many rooms are held in memory right now
+    int loadedRooms();
+
+    // called whenever the player walks into a room
+    default void enter(Room room){
+    }
+
+    // has the listener told about every room dropped from memory, for anything
+    // holding on to rooms by their coordinates. sources that keep all their
+    // rooms never call it
+    default void setEvictionListener(Consumer<Room> listener){
+    }
+}
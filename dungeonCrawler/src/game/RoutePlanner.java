@@ -0,0 +1,306 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+
+import static game.Dungeon.*;
+
+// plans a walk from a tile in one room to a tile in another. rather than
+// searching every tile on the way, it searches a small graph of door tiles
+// first: walking distances between the doors of each room are worked out once
+// and cached, and the doors on either side of a wall are one step apart. only
+// the rooms on the winning route then get a tile level path
+public class RoutePlanner {
+
+    // never search through more rooms than this. the search only steps into
+    // rooms the source already holds (see RoomSource.loadedRoom()), so a
+    // streaming dungeon is searched within its loaded radius and a click on
+    // a goal that can't be reached never generates rooms of its own
+    public static final int MAX_ROOMS = 4096;
+
+    // rooms the last plan touched, and how long it took
+    public int roomsSearched;
+    public long nanos;
+
+    // one room's part of a route: the tiles to walk, ending on a door tile
+    // unless it is the last leg
+    public static class Leg {
+        public final Room room;
+        public final ArrayList<Node> path;
+
+        Leg(Room roomIn, ArrayList<Node> pathIn){
+            room = roomIn;
+            path = pathIn;
+        }
+    }
+
+    // a room's door tiles and the walking distance between every pair of them,
+    // valid for as long as the room's version doesn't change
+    private static class RoomDoors {
+        final int version;
+        final int[] doors;
+        final int[][] distances;
+
+        RoomDoors(int versionIn, int[] doorsIn, int[][] distancesIn){
+            version = versionIn;
+            doors = doorsIn;
+            distances = distancesIn;
+        }
+
+        int indexOf(int tile){
+            for (int i = 0; i < doors.length; i++){
+                if (doors[i] == tile){
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // a node of the door graph as the search reached it. door is -1 for the goal
+    private static class Hop implements Comparable<Hop> {
+        final Room room;
+        final int door;
+        final int tile;
+        final int cost;
+        final Hop from;
+
+        Hop(Room roomIn, int doorIn, int tileIn, int costIn, Hop fromIn){
+            room = roomIn;
+            door = doorIn;
+            tile = tileIn;
+            cost = costIn;
+            from = fromIn;
+        }
+
+        @Override
+        public int compareTo(Hop other){
+            return Integer.compare(cost, other.cost);
+        }
+    }
+
+    // weak keys, so rooms a streaming dungeon evicts take their entry with them
+    private final WeakHashMap<Room, RoomDoors> doorCache = new WeakHashMap<>();
+    private final Pathfinder pathfinder = new Pathfinder();
+    // grows to the biggest room searched
+    private int[] queue = new int[COLUMNS * ROWS];
+
+    // returns the legs of the shortest route, or null if the goal can't be reached
+    public ArrayList<Leg> plan(RoomSource source, Room startRoom, int startX, int startY,
+                               Room goalRoom, int goalX, int goalY){
+        Metrics.RouteEvent event = new Metrics.RouteEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        try {
+            if (!goalRoom.isWalkable(goalX, goalY)){
+                return null;
+            }
+            Hop goal = search(source, startRoom, startY * startRoom.width + startX, goalRoom, goalY * goalRoom.width + goalX);
+            return goal == null ? null : refine(goal, startRoom, startY * startRoom.width + startX);
+        } finally {
+            nanos = System.nanoTime() - startTime;
+            Metrics.ROUTE.record(nanos);
+            event.rooms = roomsSearched;
+            event.commit();
+        }
+    }
+
+    private Hop search(RoomSource source, Room startRoom, int start, Room goalRoom, int goal){
+        HashMap<Room, int[]> best = new HashMap<>();
+        PriorityQueue<Hop> open = new PriorityQueue<>();
+
+        // walking distance from the goal to every tile of its room, the graph is
+        // undirected so this is also the distance from every door to the goal
+        int[] toGoal = distances(goalRoom, goal);
+
+        int[] fromStart = distances(startRoom, start);
+        RoomDoors startDoors = doors(startRoom);
+        for (int i = 0; i < startDoors.doors.length; i++){
+            int cost = fromStart[startDoors.doors[i]];
+            if (cost >= 0){
+                relax(open, best, startRoom, startDoors, i, cost, null);
+            }
+        }
+        if (startRoom == goalRoom && fromStart[goal] >= 0){
+            open.add(new Hop(goalRoom, -1, goal, fromStart[goal], null));
+        }
+
+        while (!open.isEmpty()){
+            Hop hop = open.poll();
+            if (hop.door == -1){
+                roomsSearched = best.size();
+                return hop;
+            }
+            if (best.get(hop.room)[hop.door] < hop.cost){
+                // already reached this door more cheaply
+                continue;
+            }
+
+            RoomDoors roomDoors = doors(hop.room);
+            if (hop.room == goalRoom && toGoal[hop.tile] >= 0){
+                open.add(new Hop(goalRoom, -1, goal, hop.cost + toGoal[hop.tile], hop));
+            }
+
+            // walk to the other doors of the same room
+            for (int i = 0; i < roomDoors.doors.length; i++){
+                int distance = roomDoors.distances[hop.door][i];
+                if (i != hop.door && distance >= 0){
+                    relax(open, best, hop.room, roomDoors, i, hop.cost + distance, hop);
+                }
+            }
+
+            // or step through the door into the next room
+            int x = hop.tile % hop.room.width;
+            int y = hop.tile / hop.room.width;
+            int dx = x == 0 ? -1 : x == hop.room.width - 1 ? 1 : 0;
+            int dy = y == 0 ? -1 : y == hop.room.height - 1 ? 1 : 0;
+            Room next = source.loadedRoom(hop.room.x + dx, hop.room.y + dy);
+            if (next == null || (best.size() >= MAX_ROOMS && !best.containsKey(next))){
+                continue;
+            }
+            int entryX = next.entryX(hop.room, x, dx);
+            int entryY = next.entryY(hop.room, y, dy);
+            if (!next.contains(entryX, entryY)){
+                continue;
+            }
+            int entry = entryY * next.width + entryX;
+            RoomDoors nextDoors = doors(next);
+            int door = nextDoors.indexOf(entry);
+            if (door >= 0){
+                relax(open, best, next, nextDoors, door, hop.cost + 1, hop);
+            }
+        }
+
+        roomsSearched = best.size();
+        return null;
+    }
+
+    private void relax(PriorityQueue<Hop> open, HashMap<Room, int[]> best, Room room, RoomDoors roomDoors,
+                       int door, int cost, Hop from){
+        int[] costs = best.get(room);
+        if (costs == null){
+            costs = new int[roomDoors.doors.length];
+            Arrays.fill(costs, Integer.MAX_VALUE);
+            best.put(room, costs);
+        }
+        if (cost < costs[door]){
+            costs[door] = cost;
+            open.add(new Hop(room, door, roomDoors.doors[door], cost, from));
+        }
+    }
+
+    // turns the chain of door hops into one tile path per room on the route
+    private ArrayList<Leg> refine(Hop goal, Room startRoom, int start){
+        ArrayList<Hop> hops = new ArrayList<>();
+        for (Hop hop = goal; hop != null; hop = hop.from){
+            hops.add(hop);
+        }
+
+        ArrayList<Leg> legs = new ArrayList<>();
+        Room room = startRoom;
+        int from = start;
+        for (int i = hops.size() - 1; i >= 0; i--){
+            Hop hop = hops.get(i);
+            if (hop.room != room){
+                // crossed into a new room, the previous hop was the exit door
+                legs.add(leg(room, from, hops.get(i + 1).tile));
+                room = hop.room;
+                from = hop.tile;
+            }
+        }
+        legs.add(leg(room, from, goal.tile));
+        return legs;
+    }
+
+    private Leg leg(Room room, int from, int to){
+        int width = room.width;
+        return new Leg(room, pathfinder.find(room, from % width, from / width, to % width, to / width));
+    }
+
+    private RoomDoors doors(Room room){
+        RoomDoors cached = doorCache.get(room);
+        if (cached != null && cached.version == room.version){
+            return cached;
+        }
+
+        // door tiles sit on the edge of the room
+        int count = 0;
+        int width = room.width;
+        int height = room.height;
+        int[] found = new int[2 * (width + height)];
+        for (int x = 0; x < width; x++){
+            count = addDoor(room, x, 0, found, count);
+            count = addDoor(room, x, height - 1, found, count);
+        }
+        for (int y = 1; y < height - 1; y++){
+            count = addDoor(room, 0, y, found, count);
+            count = addDoor(room, width - 1, y, found, count);
+        }
+        int[] doorTiles = Arrays.copyOf(found, count);
+
+        int[][] distances = new int[count][count];
+        for (int i = 0; i < count; i++){
+            int[] all = distances(room, doorTiles[i]);
+            for (int j = 0; j < count; j++){
+                distances[i][j] = all[doorTiles[j]];
+            }
+        }
+
+        RoomDoors roomDoors = new RoomDoors(room.version, doorTiles, distances);
+        doorCache.put(room, roomDoors);
+        return roomDoors;
+    }
+
+    private static int addDoor(Room room, int x, int y, int[] found, int count){
+        if (room.get(x, y) == 2){
+            found[count++] = y * room.width + x;
+        }
+        return count;
+    }
+
+    // breadth first walking distance from one tile to every tile of the room,
+    // -1 where it can't be reached
+    private int[] distances(Room room, int from){
+        int width = room.width;
+        int height = room.height;
+        int[] distance = new int[room.tiles.length];
+        if (queue.length < distance.length){
+            queue = new int[distance.length];
+        }
+        Arrays.fill(distance, -1);
+        distance[from] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail){
+            int tile = queue[head++];
+            int x = tile % width;
+            int y = tile / width;
+            if (x > 0){
+                tail = visit(room, distance, tile, tile - 1, tail);
+            }
+            if (x < width - 1){
+                tail = visit(room, distance, tile, tile + 1, tail);
+            }
+            if (y > 0){
+                tail = visit(room, distance, tile, tile - width, tail);
+            }
+            if (y < height - 1){
+                tail = visit(room, distance, tile, tile + width, tail);
+            }
+        }
+        return distance;
+    }
+
+    private int visit(Room room, int[] distance, int from, int to, int tail){
+        int value = room.tiles[to];
+        if (distance[to] == -1 && (value == 0 || value == 2)){
+            distance[to] = distance[from] + 1;
+            queue[tail++] = to;
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,33 @@
+package game;
+
+// how paths within a room are searched for, pick one with
+// -Ddungeon.search=astar|jps|jps-diagonal or cycle through them with J
+public enum SearchMode {
+    // plain A*, orthogonal moves only
+    ASTAR("astar"),
+    // jump point search, orthogonal moves only, same paths as A* for less work
+    JPS("jps"),
+    // jump point search that also moves diagonally, without cutting corners
+    JPS_DIAGONAL("jps-diagonal");
+
+    public final String name;
+
+    SearchMode(String nameIn){
+        name = nameIn;
+    }
+
+    public SearchMode next(){
+        return values()[(ordinal() + 1) % values().length];
+    }
+
+    public static SearchMode fromProperty(){
+        String property = System.getProperty("dungeon.search", ASTAR.name);
+        for (SearchMode mode : values()){
+            if (mode.name.equals(property)){
+                return mode;
+            }
+        }
+        System.out.println("unknown search mode " + property + ", using " + ASTAR.name);
+        return ASTAR;
+    }
+}
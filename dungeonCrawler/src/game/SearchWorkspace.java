@@ -0,0 +1,140 @@
+package game;
+
+import java.util.Arrays;
+
+import static game.Dungeon.*;
+
+// scratch state for a grid search, one per thread so searches never allocate
+// it and rooms only have to store their tiles
+public class SearchWorkspace {
+
+    private static final ThreadLocal<SearchWorkspace> CURRENT = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    // per-node search state, indexed by y * width + x of the room searched.
+    // a node's g and cameFrom are only valid when seen[i] == generation, and it
+    // is closed when closed[i] == generation, so bumping the generation resets
+    // the whole grid without touching it. the arrays grow to the biggest room
+    // searched so far
+    int[] g = new int[COLUMNS * ROWS];
+    int[] f = new int[COLUMNS * ROWS];
+    int[] cameFrom = new int[COLUMNS * ROWS];
+    int[] seen = new int[COLUMNS * ROWS];
+    int[] closed = new int[COLUMNS * ROWS];
+    int generation = 0;
+
+    // binary min-heap of node indices ordered by f, heapIndex[i] is the slot
+    // node i currently sits in so we can decrease its key in place
+    int[] heap = new int[COLUMNS * ROWS];
+    int[] heapIndex = new int[COLUMNS * ROWS];
+    int heapSize;
+
+    public static SearchWorkspace current(){
+        return CURRENT.get();
+    }
+
+    // starts a new search over a grid of the given number of tiles
+    void reset(int size){
+        if (size > g.length){
+            g = new int[size];
+            f = new int[size];
+            cameFrom = new int[size];
+            seen = new int[size];
+            closed = new int[size];
+            heap = new int[size];
+            heapIndex = new int[size];
+        }
+        generation++;
+        if (generation == Integer.MAX_VALUE){
+            // stamps would wrap around, so clear them once and start over
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+    }
+
+    boolean isSeen(int node){
+        return seen[node] == generation;
+    }
+
+    boolean isClosed(int node){
+        return closed[node] == generation;
+    }
+
+    void close(int node){
+        closed[node] = generation;
+    }
+
+    void open(int node, int gIn, int from, int h){
+        seen[node] = generation;
+        g[node] = gIn;
+        f[node] = gIn + h;
+        cameFrom[node] = from;
+        heap[heapSize] = node;
+        heapIndex[node] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+
+    void decrease(int node, int gIn, int from){
+        // h never changes for a node, so shift f by the g saving
+        f[node] -= g[node] - gIn;
+        g[node] = gIn;
+        cameFrom[node] = from;
+        siftUp(heapIndex[node]);
+    }
+
+    // rebuilds the heap after the f of open nodes was changed in place
+    void heapify(){
+        for (int slot = heapSize / 2 - 1; slot >= 0; slot--){
+            siftDown(slot);
+        }
+    }
+
+    int pop(){
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0){
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot){
+        int node = heap[slot];
+        while (slot > 0){
+            int parent = (slot - 1) >> 1;
+            if (f[heap[parent]] <= f[node]){
+                break;
+            }
+            heap[slot] = heap[parent];
+            heapIndex[heap[slot]] = slot;
+            slot = parent;
+        }
+        heap[slot] = node;
+        heapIndex[node] = slot;
+    }
+
+    private void siftDown(int slot){
+        int node = heap[slot];
+        while (true){
+            int child = 2 * slot + 1;
+            if (child >= heapSize){
+                break;
+            }
+            if (child + 1 < heapSize && f[heap[child + 1]] < f[heap[child]]){
+                child++;
+            }
+            if (f[node] <= f[heap[child]]){
+                break;
+            }
+            heap[slot] = heap[child];
+            heapIndex[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = node;
+        heapIndex[node] = slot;
+    }
+}
@@ -0,0 +1,59 @@
+package game;
+
+// steps a world forward at a fixed rate no matter how often it is driven,
+// by the board's Swing timer or as fast as possible by the headless runner
+public class Simulation {
+
+    // controls the delay between each tick in ms
+    public static final int TICK_MILLIS = 25;
+    public static final long TICK_NANOS = TICK_MILLIS * 1_000_000L;
+    // never run more than this many ticks in one go to catch up after a stall
+    private static final int MAX_CATCH_UP = 10;
+
+    public final World world;
+    // when set, feeds the world the recorded input due before each tick
+    public Replay replay;
+
+    // real time that has passed but hasn't been simulated yet
+    private long accumulator;
+
+    public Simulation(World worldIn){
+        world = worldIn;
+    }
+
+    public void step(){
+        Metrics.TickEvent event = new Metrics.TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+        if (replay != null){
+            replay.feed(world);
+        }
+        world.tick();
+        Metrics.TICK.record(System.nanoTime() - start);
+        event.tick = world.ticks;
+        event.commit();
+    }
+
+    // runs as many whole ticks as fit into the elapsed time and carries the
+    // rest over to the next call. returns how many ticks ran
+    public int advance(long elapsedNanos){
+        accumulator += elapsedNanos;
+        int steps = 0;
+        while (accumulator >= TICK_NANOS && steps < MAX_CATCH_UP){
+            step();
+            accumulator -= TICK_NANOS;
+            steps++;
+        }
+        if (steps == MAX_CATCH_UP){
+            // too far behind, drop the backlog rather than spiral
+            accumulator = 0;
+        }
+        return steps;
+    }
+
+    // how far into the next tick real time has got, from 0 to 1. drawing
+    // between the last tick and the next one by this much keeps motion smooth
+    public double alpha(){
+        return (double) accumulator / TICK_NANOS;
+    }
+}
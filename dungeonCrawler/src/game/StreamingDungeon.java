@@ -0,0 +1,177 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import static game.Dungeon.*;
+
+// an endless dungeon where every grid position holds a room. nothing is
+// generated up front: a room is built from the seed the first time it is
+// asked for, and rooms far from the player are dropped again. a dropped room
+// that comes back is regenerated identically, with any tiles that were
+// changed while it was loaded put back from an overlay
+public class StreamingDungeon implements RoomSource {
+
+    // rooms further than this from the player's room (in rooms, either axis)
+    // are evicted, override with -Ddungeon.streamRadius=N
+    public static final int RADIUS = Integer.getInteger("dungeon.streamRadius", 2);
+
+    private static final int EAST = 0;
+    private static final int SOUTH = 1;
+
+    private final long seed;
+    private final RoomIndex loaded = new RoomIndex();
+    // the loaded rooms again, in a list so eviction can walk them
+    private final ArrayList<Room> loadedList = new ArrayList<>();
+    // each loaded room's version right after it was generated, to spot changed ones
+    private final HashMap<Room, Integer> baseVersions = new HashMap<>();
+    // tiles changed in rooms that have since been evicted, keyed by room coordinates
+    private final HashMap<Long, TileOverlay> overlays = new HashMap<>();
+    // told about each room as it is evicted, see RoomSource.setEvictionListener()
+    private Consumer<Room> evictionListener = room -> {};
+
+    // the tiles of an evicted room that differ from what the seed generates
+    private static class TileOverlay {
+        final int[] positions;
+        final byte[] values;
+
+        TileOverlay(int[] positionsIn, byte[] valuesIn){
+            positions = positionsIn;
+            values = valuesIn;
+        }
+    }
+
+    public StreamingDungeon(long seedIn){
+        seed = seedIn;
+    }
+
+    @Override
+    public long seed(){
+        return seed;
+    }
+
+    @Override
+    public Room startRoom(){
+        return getRoom(0, 0);
+    }
+
+    @Override
+    public Room getRoom(int x, int y){
+        Room room = loaded.get(x, y);
+        if (room == null){
+            room = generate(x, y);
+            TileOverlay overlay = overlays.remove(RoomIndex.key(x, y));
+            if (overlay != null){
+                for (int i = 0; i < overlay.positions.length; i++){
+                    room.tiles[overlay.positions[i]] = overlay.values[i];
+                }
+                room.version++;
+            }
+            loaded.put(room);
+            loadedList.add(room);
+            // a room restored from an overlay has to be diffed again when it goes
+            baseVersions.put(room, overlay != null ? room.version - 1 : room.version);
+        }
+        return room;
+    }
+
+    @Override
+    public Room loadedRoom(int x, int y){
+        return loaded.get(x, y);
+    }
+
+    @Override
+    public int loadedRooms(){
+        return loaded.size();
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<Room> listener){
+        evictionListener = listener;
+    }
+
+    @Override
+    public void enter(Room room){
+        // drop everything that has fallen out of range of the player's room
+        for (int i = loadedList.size() - 1; i >= 0; i--){
+            Room other = loadedList.get(i);
+            if (Math.abs(other.x - room.x) > RADIUS || Math.abs(other.y - room.y) > RADIUS){
+                evict(other);
+                // swap remove, order doesn't matter
+                loadedList.set(i, loadedList.get(loadedList.size() - 1));
+                loadedList.remove(loadedList.size() - 1);
+            }
+        }
+    }
+
+    private void evict(Room room){
+        loaded.remove(room.x, room.y);
+        evictionListener.accept(room);
+        int baseVersion = baseVersions.remove(room);
+        if (room.version == baseVersion){
+            // untouched, the seed will give it back exactly as it is
+            return;
+        }
+
+        byte[] base = generate(room.x, room.y).tiles;
+        int changed = 0;
+        for (int i = 0; i < base.length; i++){
+            if (base[i] != room.tiles[i]){
+                changed++;
+            }
+        }
+        int[] positions = new int[changed];
+        byte[] values = new byte[changed];
+        int next = 0;
+        for (int i = 0; i < base.length; i++){
+            if (base[i] != room.tiles[i]){
+                positions[next] = i;
+                values[next] = room.tiles[i];
+                next++;
+            }
+        }
+        if (changed > 0){
+            overlays.put(RoomIndex.key(room.x, room.y), new TileOverlay(positions, values));
+        }
+    }
+
+    // builds the room at x, y purely from the seed
+    private Room generate(int x, int y){
+        Metrics.GenerationEvent event = new Metrics.GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Room room = new Room(new byte[ROOM_WIDTH * ROOM_HEIGHT], x, y, ROOM_WIDTH, ROOM_HEIGHT);
+        createRoom(room, roomRandom(seed, x, y));
+        createDoors(room, hasDoor(x - 1, y, EAST), hasDoor(x, y, EAST),
+                hasDoor(x, y, SOUTH), hasDoor(x, y - 1, SOUTH));
+        boolean repaired = Connectivity.connectDoors(room);
+        Metrics.GENERATION.record(System.nanoTime() - start);
+        Metrics.ROOMS_GENERATED.increment();
+        event.rooms = 1;
+        if (repaired){
+            Metrics.ROOMS_REPAIRED.increment();
+            event.repaired = 1;
+        }
+        event.commit();
+        return room;
+    }
+
+    // whether the east or south side of the room at x, y has a door. both rooms
+    // sharing a side ask about the same edge so they always agree. every room
+    // has a door east or south, so from anywhere there is always a way on and
+    // the player can never be shut in, other sides get one a third of the time
+    private boolean hasDoor(int x, int y, int side){
+        long hash = mix(seed ^ RoomIndex.key(x, y) * 0x9e3779b97f4a7c15L);
+        if ((int) (hash & 1) == side){
+            return true;
+        }
+        return ((hash >>> (side == EAST ? 1 : 32)) & 0x7fffffff) % 3 == 0;
+    }
+
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
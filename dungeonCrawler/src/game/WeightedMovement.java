@@ -0,0 +1,55 @@
+package game;
+
+// moves like another model, but stepping onto a tile costs that model's step
+// cost times a weight for the kind of tile it is, so a search can prefer some
+// tiles over others. a weight of 0 or less makes that kind of tile impassable
+public class WeightedMovement implements MovementModel {
+
+    // orthogonal moves where stepping onto a door costs three times a floor tile
+    public static final WeightedMovement DOORS_SLOW = new WeightedMovement(MovementModel.MANHATTAN, new int[]{1, 0, 3});
+
+    private final MovementModel base;
+    // indexed by tile value
+    private final int[] weights;
+    // every step costs at least this many times what the base model charges,
+    // so the base estimate scaled by it is still a lower bound
+    private final int minWeight;
+
+    public WeightedMovement(MovementModel baseIn, int[] weightsIn){
+        base = baseIn;
+        weights = weightsIn.clone();
+        int min = Integer.MAX_VALUE;
+        for (int weight : weights){
+            if (weight > 0){
+                min = Math.min(min, weight);
+            }
+        }
+        minWeight = min == Integer.MAX_VALUE ? 1 : min;
+    }
+
+    @Override
+    public String name(){
+        return "weighted " + base.name();
+    }
+
+    @Override
+    public int[][] moves(){
+        return base.moves();
+    }
+
+    @Override
+    public int cost(Room room, int x, int y, int dx, int dy){
+        int tile = room.get(x + dx, y + dy);
+        int weight = tile < weights.length ? weights[tile] : 1;
+        if (weight <= 0){
+            return -1;
+        }
+        int cost = base.cost(room, x, y, dx, dy);
+        return cost < 0 ? -1 : cost * weight;
+    }
+
+    @Override
+    public int estimate(int x1, int y1, int x2, int y2){
+        return base.estimate(x1, y1, x2, y2) * minWeight;
+    }
+}
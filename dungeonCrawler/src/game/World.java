@@ -0,0 +1,355 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+// the game state: which room the player is in, where they stand and the path
+// they are walking. it only changes through the input methods and tick(), and
+// nothing in here touches AWT or Swing, so it runs the same behind the board
+// as it does headless
+public class World {
+
+    // monsters spawned in a room the first time the player enters it, override with -Ddungeon.monsters=N
+    public static final int MONSTERS_PER_ROOM = Integer.getInteger("dungeon.monsters", 3);
+
+    public final RoomSource dungeon;
+    public Room currentRoom;
+    // current position of the player on the room grid
+    public int playerX;
+    public int playerY;
+    // how many ticks have been simulated so far
+    public long ticks;
+
+    // finds paths within a room, reusing recent results and search state
+    public final PathService paths = new PathService();
+    // work handed back from other threads, run at the start of the next tick
+    private final ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+    // finds paths on a background thread for clicks, see requestMoveTo()
+    public final AsyncPaths asyncPaths = new AsyncPaths(inbox::add);
+    // plans walks that cross into other rooms
+    public final RoutePlanner planner = new RoutePlanner();
+    // leads anything chasing the player to them, see flowToPlayer()
+    private final FlowField flowToPlayer = new FlowField();
+    // the monsters of every room the player has been in, parked while their room is evicted
+    public final Entities entities;
+    // what the player can see from where they stand, see look()
+    public final FieldOfView sight = new FieldOfView();
+    // every tile the player has seen of each room they have been in, one bit
+    // per tile. keyed by the room's coordinates, since a streaming dungeon can
+    // evict a room and make it again later
+    private final HashMap<Long, long[]> explored = new HashMap<>();
+
+    // the path being walked and the glide between tiles, advanced by tick()
+    public final Movement movement = new Movement();
+    // when walking to another room, one path per room and which one is being followed
+    private ArrayList<RoutePlanner.Leg> route;
+    private int legIndex;
+
+    // logs input and handed back paths as they come in, see Recording
+    public Recording recording;
+    // set while a Replay drives the world: click paths come from the
+    // recording instead of the pathfinder thread, see deliverPath()
+    public boolean replaying;
+    private Consumer<ArrayList<Node>> awaitingPath;
+    // goes up with every key press, a click's path that comes back after one is dropped
+    private long keyPresses;
+
+    public World(RoomSource dungeonIn, Random generator){
+        this(dungeonIn, dungeonIn.startRoom());
+        randomizePos(generator);
+        look();
+    }
+
+    // puts the player on a given tile, like where a saved game left them
+    public World(RoomSource dungeonIn, Room room, int x, int y){
+        this(dungeonIn, room);
+        playerX = x;
+        playerY = y;
+        look();
+    }
+
+    private World(RoomSource dungeonIn, Room room){
+        dungeon = dungeonIn;
+        entities = new Entities(dungeon.seed());
+        // a streaming dungeon's evicted rooms would otherwise stay in memory for their monsters
+        dungeon.setEvictionListener(entities::evict);
+        currentRoom = room;
+        enter(currentRoom);
+    }
+
+    private void randomizePos(Random generator){
+        int tile = currentRoom.randomFloor(generator::nextInt);
+        if (tile < 0){
+            // no floor anywhere, the middle of the room is as good as anywhere
+            playerX = currentRoom.width / 2;
+            playerY = currentRoom.height / 2;
+            return;
+        }
+        playerX = tile % currentRoom.width;
+        playerY = tile / currentRoom.width;
+    }
+
+    public boolean isFollowingPath(){
+        return movement.isFollowing();
+    }
+
+    // moves the player one tile, walking through a door into the next room when
+    // they step off the edge of the room while standing on one. a key press
+    // takes over from any path being walked, searched for, or found and
+    // waiting to be handed over at the next tick
+    public void movePlayer(int dx, int dy){
+        if (recording != null){
+            recording.step(ticks, dx, dy);
+        }
+        movement.stop();
+        route = null;
+        asyncPaths.cancel();
+        keyPresses++;
+
+        int x = playerX + dx;
+        int y = playerY + dy;
+        if (currentRoom.contains(x, y)){
+            if (currentRoom.isWalkable(x, y)){
+                step(x, y);
+            }
+        }
+        else if (currentRoom.get(playerX, playerY) == 2){
+            stepThroughDoor(dx, dy);
+        }
+        // key presses come in between ticks, and the board may draw before the next one
+        look();
+    }
+
+    private void stepThroughDoor(int dx, int dy){
+        Room next = dungeon.getRoom(currentRoom.x + dx, currentRoom.y + dy);
+        if (next != null){
+            // come out on the opposite edge of the new room
+            playerX = next.entryX(currentRoom, playerX, dx);
+            playerY = next.entryY(currentRoom, playerY, dy);
+            currentRoom = next;
+            enter(currentRoom);
+            movement.snap(playerX, playerY);
+        }
+    }
+
+    private void step(int x, int y){
+        movement.beginStep(playerX, playerY);
+        playerX = x;
+        playerY = y;
+    }
+
+    private void enter(Room room){
+        dungeon.enter(room);
+        // label the room's connected areas now rather than on the first click
+        room.components();
+        if (entities.hasRoom(room)){
+            // a streaming dungeon may have made the room afresh, point its monsters at the new one
+            entities.roomId(room);
+        }
+        else {
+            entities.populate(room, MONSTERS_PER_ROOM);
+        }
+    }
+
+    // finds a path to the given tile of the current room and starts walking it.
+    // returns the path, or null if the tile can't be reached
+    public ArrayList<Node> moveTo(int tileX, int tileY){
+        if (recording != null){
+            recording.moveTo(ticks, tileX, tileY);
+        }
+        ArrayList<Node> found = paths.find(currentRoom, playerX, playerY, tileX, tileY);
+        if (found != null && !found.isEmpty()){
+            route = null;
+            // the first node is the tile they stand on, the first step is to the second
+            movement.follow(found, 1);
+        }
+        return found;
+    }
+
+    // like moveTo(), but the search runs on a background thread and the walk
+    // starts on the first tick after it finishes. a newer request replaces this
+    // one. done, if given, gets the path (or null) once the walk has started
+    public void requestMoveTo(int tileX, int tileY, Consumer<ArrayList<Node>> done){
+        if (recording != null){
+            recording.click(ticks, tileX, tileY);
+        }
+        findPath(tileX, tileY, done);
+    }
+
+    private void findPath(int tileX, int tileY, Consumer<ArrayList<Node>> done){
+        if (currentRoom.contains(tileX, tileY) && !currentRoom.connected(playerX, playerY, tileX, tileY)){
+            // walled off from the player, not worth a trip to the pathfinder thread
+            if (done != null){
+                done.accept(null);
+            }
+            return;
+        }
+        Room room = currentRoom;
+        int startX = playerX;
+        int startY = playerY;
+        long pressed = keyPresses;
+        Consumer<ArrayList<Node>> arrived = found -> {
+            if (recording != null){
+                // which tick a search comes back on is down to the thread, so it is recorded
+                recording.path(ticks, found);
+            }
+            if (pressed != keyPresses){
+                // a key press took over since, don't walk them back to the old target
+                return;
+            }
+            if (room != currentRoom){
+                // they walked out of the room while it was searching
+                return;
+            }
+            if (playerX != startX || playerY != startY){
+                // they moved on while it was searching, ask again from where they are now
+                findPath(tileX, tileY, done);
+                return;
+            }
+            if (found != null && !found.isEmpty()){
+                route = null;
+                // searched from where they stand, checked just above
+                movement.follow(found, 1);
+            }
+            if (done != null){
+                done.accept(found);
+            }
+        };
+        if (replaying){
+            awaitingPath = arrived;
+        }
+        else {
+            asyncPaths.request(room, startX, startY, tileX, tileY, arrived);
+        }
+    }
+
+    // hands the latest click's path to the world at the start of the next
+    // tick, as the pathfinder thread would have. for replays
+    public void deliverPath(ArrayList<Node> found){
+        inbox.add(() -> {
+            Consumer<ArrayList<Node>> arrived = awaitingPath;
+            awaitingPath = null;
+            if (arrived != null){
+                arrived.accept(found);
+            }
+        });
+    }
+
+    // plans a walk to a tile of any room, through as many doors as it takes, and
+    // starts walking it. returns one path per room on the way, or null if the
+    // tile can't be reached
+    public ArrayList<RoutePlanner.Leg> travelTo(Room room, int tileX, int tileY){
+        if (recording != null){
+            recording.travel(ticks, room, tileX, tileY);
+        }
+        ArrayList<RoutePlanner.Leg> found = planner.plan(dungeon, currentRoom, playerX, playerY, room, tileX, tileY);
+        if (found != null){
+            route = found;
+            legIndex = 0;
+            movement.follow(found.get(0).path, 1);
+        }
+        return found;
+    }
+
+    // how paths within a room are searched for, for clicks and moveTo() alike
+    public void setSearchMode(SearchMode mode){
+        if (recording != null){
+            recording.searchMode(ticks, mode);
+        }
+        paths.setMode(mode);
+        asyncPaths.setMode(mode);
+    }
+
+    // how A* searches move and how greedy they are, for clicks and moveTo()
+    // alike. a setting like -Ddungeon.movement rather than input, so a
+    // recording doesn't log it
+    public void setMovement(MovementModel model, double weight){
+        paths.setMovement(model, weight);
+        asyncPaths.setMovement(model, weight);
+    }
+
+    // a fingerprint of the player, the monsters and the tick, the things input
+    // changes, for checking a replay is still doing what its recording did
+    public long stateHash(){
+        long hash = ticks;
+        hash = hash * 31 + RoomIndex.key(currentRoom.x, currentRoom.y);
+        hash = hash * 31 + playerX;
+        hash = hash * 31 + playerY;
+        for (int i = 0; i < entities.count; i++){
+            hash = hash * 31 + entities.x[i];
+            hash = hash * 31 + entities.y[i];
+            hash = hash * 31 + entities.room[i];
+            hash = hash * 31 + entities.state[i];
+        }
+        return hash;
+    }
+
+    // the tiles of a room the player has seen, as a bitset over its tiles
+    public long[] explored(Room room){
+        return explored.computeIfAbsent(RoomIndex.key(room.x, room.y), key -> new long[(room.tiles.length + 63) / 64]);
+    }
+
+    // works out what the player can see, only when they are on a new tile
+    // or the room changed
+    private void look(){
+        sight.update(currentRoom, playerX, playerY, explored(currentRoom));
+    }
+
+    // a flow field over the current room leading to the player's tile, for any
+    // number of monsters to follow. it is only worked out again once the player
+    // has moved to another tile or room, or the room's tiles changed
+    public FlowField flowToPlayer(){
+        flowToPlayer.update(currentRoom, playerX, playerY);
+        return flowToPlayer;
+    }
+
+    public void tick(){
+        ticks++;
+
+        Runnable handedBack;
+        while ((handedBack = inbox.poll()) != null){
+            handedBack.run();
+        }
+
+        movement.tick();
+        if (movement.stepDue()){
+            if (movement.hasNext()){
+                int x = movement.nextX();
+                int y = movement.nextY();
+                if (x != playerX || y != playerY){
+                    step(x, y);
+                }
+                movement.advance();
+            }
+            else if (route != null && legIndex + 1 < route.size()){
+                // at the door at the end of this room's leg, go through it and
+                // carry on with the next room's path, whose first tile is where
+                // the player comes out
+                stepThroughDoor(playerX == 0 ? -1 : playerX == currentRoom.width - 1 ? 1 : 0,
+                        playerY == 0 ? -1 : playerY == currentRoom.height - 1 ? 1 : 0);
+                legIndex++;
+                movement.follow(route.get(legIndex).path, 1);
+                movement.pause(Movement.STEP_TICKS);
+            }
+            else {
+                // the path is complete
+                movement.stop();
+                route = null;
+            }
+        }
+
+        // prevent the player from moving off the edge of the room
+        playerX = Math.max(0, Math.min(currentRoom.width - 1, playerX));
+        playerY = Math.max(0, Math.min(currentRoom.height - 1, playerY));
+
+        look();
+        entities.tick(ticks, currentRoom, flowToPlayer());
+
+        if (recording != null && ticks % Recording.CHECK_TICKS == 0){
+            recording.check(ticks, stateHash());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+// saves a generated dungeon, maps it back and checks every room came back the
+// same, timing the save, the open, reading single rooms and reading them all.
+// also round trips a world to check the player ends up where they were.
+// exits with status 1 if anything came back different.
+// run with: java game.DungeonFileCheck [rooms] [seed], see Fixtures
+public class DungeonFileCheck {
+
+    public static void main(String[] args) throws IOException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : Dungeon.defaultSeed();
+        System.out.println("rooms: " + rooms + ", seed: " + seed);
+
+        Dungeon dungeon = new Dungeon(rooms, seed);
+        World world = new World(dungeon, new Random(seed));
+        world.ticks = 1234;
+        Path path = Files.createTempFile("dungeon", ".sav");
+        int mismatches = 0;
+        try {
+            long start = System.nanoTime();
+            DungeonFile.save(path, world);
+            System.out.println("save:        " + (System.nanoTime() - start) / 1_000_000 + " ms, "
+                    + Files.size(path) / 1024 + " KB");
+
+            start = System.nanoTime();
+            DungeonFile file = DungeonFile.open(path);
+            System.out.println("open:        " + (System.nanoTime() - start) / 1000 + " us");
+
+            // the first round pays for page faults and the JIT, the second is warm
+            SplittableRandom random = new SplittableRandom(seed);
+            int reads = 1000;
+            for (int round = 0; round < 2; round++){
+                start = System.nanoTime();
+                for (int i = 0; i < reads; i++){
+                    Room room = dungeon.rooms.get(random.nextInt(rooms));
+                    if (!Arrays.equals(file.readTiles(room.x, room.y), room.tiles)){
+                        System.out.println("MISMATCH reading room " + room.x + "," + room.y);
+                        mismatches++;
+                    }
+                }
+                System.out.println((round == 0 ? "single room: " : "  warm:      ")
+                        + (System.nanoTime() - start) / reads / 1000.0 + " us per read");
+            }
+
+            start = System.nanoTime();
+            int roomMismatches = 0;
+            for (Room room : dungeon.rooms){
+                Room loaded = file.getRoom(room.x, room.y);
+                if (loaded == null || !Arrays.equals(loaded.tiles, room.tiles)){
+                    roomMismatches++;
+                }
+            }
+            System.out.println("all rooms:   " + (System.nanoTime() - start) / 1_000_000 + " ms, "
+                    + roomMismatches + " mismatches");
+            mismatches += roomMismatches;
+
+            World loaded = file.loadWorld(new Random(seed));
+            boolean same = loaded.currentRoom.x == world.currentRoom.x && loaded.currentRoom.y == world.currentRoom.y
+                    && loaded.playerX == world.playerX && loaded.playerY == world.playerY
+                    && loaded.ticks == world.ticks && file.seed() == seed;
+            System.out.println(same ? "player restored" : "MISMATCH in player state");
+            if (!same){
+                mismatches++;
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        if (mismatches > 0){
+            System.out.println("FAILED: the dungeon didn't come back the same, " + mismatches + " mismatches");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package game;
+
+import java.util.SplittableRandom;
+
+import static game.Dungeon.*;
+
+// rooms for the checks and reports in tools/, generated from a random the
+// same way every run. everything in tools/ is compiled together with the
+// game's sources, since it reaches package-private code, but kept out of src
+// so none of it ships with the game:
+//   javac -d out src/game/*.java tools/game/*.java
+//   java -cp out game.JumpPointCheck
+final class Fixtures {
+
+    private Fixtures(){
+    }
+
+    // a generated room at x, 0 with a random set of doors
+    static Room randomRoom(int x, SplittableRandom random){
+        Room room = new Room(new byte[COLUMNS * ROWS], x, 0);
+        createRoom(room, random.split());
+        createDoors(room, random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), random.nextBoolean());
+        return room;
+    }
+}
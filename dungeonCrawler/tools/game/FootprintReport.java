@@ -0,0 +1,74 @@
+package game;
+
+import java.lang.ref.Reference;
+
+import static game.Dungeon.*;
+
+// prints how much heap a batch of rooms takes with the old Node[][] layout
+// compared to the flat byte[] tiles rooms use now.
+// run with: java game.FootprintReport [rooms], see Fixtures
+public class FootprintReport {
+
+    // mirrors the fields every Node used to carry when it held search state
+    private static class LegacyNode {
+        int x;
+        int y;
+        int value;
+        int g = Integer.MAX_VALUE;
+        int h;
+        int f;
+        Boolean start = false;
+        Boolean end = false;
+        Boolean inOpen = false;
+        Boolean inClosed = false;
+        LegacyNode cameFrom = null;
+
+        LegacyNode(int xIn, int yIn, int valueIn){
+            x = xIn;
+            y = yIn;
+            value = valueIn;
+        }
+    }
+
+    public static void main(String[] args){
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        long before = usedMemory();
+        LegacyNode[][][] legacy = new LegacyNode[rooms][][];
+        for (int r = 0; r < rooms; r++){
+            legacy[r] = new LegacyNode[COLUMNS][ROWS];
+            for (int col = 0; col < COLUMNS; col++){
+                for (int row = 0; row < ROWS; row++){
+                    legacy[r][col][row] = new LegacyNode(col, row, 0);
+                }
+            }
+        }
+        long legacyBytes = usedMemory() - before;
+
+        before = usedMemory();
+        Room[] compact = new Room[rooms];
+        for (int r = 0; r < rooms; r++){
+            compact[r] = new Room(new byte[COLUMNS * ROWS], r, 0);
+        }
+        long compactBytes = usedMemory() - before;
+
+        System.out.println("rooms:            " + rooms + " (" + COLUMNS + "x" + ROWS + " tiles)");
+        System.out.println("Node[][] layout:  " + legacyBytes / 1024 + " KiB, "
+                + legacyBytes / rooms + " bytes per room");
+        System.out.println("byte[] layout:    " + compactBytes / 1024 + " KiB, "
+                + compactBytes / rooms + " bytes per room");
+        System.out.println("ratio:            " + String.format("%.1f", (double) legacyBytes / compactBytes) + "x");
+
+        // keep both alive until after they were measured
+        Reference.reachabilityFence(legacy);
+        Reference.reachabilityFence(compact);
+    }
+
+    private static long usedMemory(){
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package game;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// generates the same dungeon on one thread and on every core, checks both
+// came out identical and prints how many rooms per second each managed.
+// exits with status 1 if they differ.
+// run with: java game.GenerationThroughput [rooms] [seed], see Fixtures
+public class GenerationThroughput {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : Dungeon.defaultSeed();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("rooms: " + rooms + ", seed: " + seed);
+        long single = run(rooms, seed, 1);
+        long parallel = run(rooms, seed, cores);
+        if (single != parallel){
+            System.out.println("FAILED: different dungeons on 1 and " + cores + " threads");
+            System.exit(1);
+        }
+        System.out.println("identical output on 1 and " + cores + " threads");
+    }
+
+    // generates a few times in a pool of the given size, parallel streams run in
+    // the pool that started them, and returns a hash of the last dungeon
+    private static long run(int rooms, long seed, int threads) throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Dungeon dungeon = null;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++){
+                long start = System.nanoTime();
+                dungeon = pool.submit(() -> new Dungeon(rooms, seed)).get();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.println(threads + " thread(s): " + best / 1_000_000 + " ms, "
+                    + (long) (rooms / (best / 1e9)) + " rooms/s");
+            return hash(dungeon);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long hash(Dungeon dungeon){
+        long hash = 0;
+        for (Room room : dungeon.rooms){
+            hash = hash * 31 + RoomIndex.key(room.x, room.y);
+            for (byte tile : room.tiles){
+                hash = hash * 31 + tile;
+            }
+        }
+        return hash;
+    }
+}
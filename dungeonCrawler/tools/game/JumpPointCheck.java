@@ -0,0 +1,107 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static game.Dungeon.*;
+
+// runs jump point search and A* between random tiles of randomly generated
+// rooms, and checks they agree on how long the shortest path is, with and
+// without diagonal moves. exits with status 1 if they ever don't.
+// halfway through each room a few tiles are flipped, so the jump tables have
+// to be rebuilt. prints the nodes each one expanded on the way.
+// run with: java game.JumpPointCheck [rooms] [seed], see Fixtures
+public class JumpPointCheck {
+
+    private static final int SEARCHES_PER_ROOM = 20;
+
+    public static void main(String[] args){
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : Dungeon.defaultSeed();
+        SplittableRandom random = new SplittableRandom(seed);
+        System.out.println("rooms: " + rooms + ", seed: " + seed);
+
+        Pathfinder astar = new Pathfinder();
+        Pathfinder astarDiagonal = new Pathfinder(MovementModel.OCTILE, 1);
+        JumpPointSearch jps = new JumpPointSearch(false);
+        JumpPointSearch jpsDiagonal = new JumpPointSearch(true);
+        long astarExpanded = 0;
+        long jpsExpanded = 0;
+        long astarDiagonalExpanded = 0;
+        long jpsDiagonalExpanded = 0;
+        int searches = 0;
+        int mismatches = 0;
+
+        for (int i = 0; i < rooms; i++){
+            Room room = Fixtures.randomRoom(i, random);
+
+            for (int s = 0; s < SEARCHES_PER_ROOM; s++){
+                if (s == SEARCHES_PER_ROOM / 2){
+                    for (int flip = 0; flip < 5; flip++){
+                        int x = 1 + random.nextInt(COLUMNS - 2);
+                        int y = 1 + random.nextInt(ROWS - 2);
+                        room.set(x, y, room.get(x, y) == 1 ? 0 : 1);
+                    }
+                }
+                int sx = random.nextInt(COLUMNS);
+                int sy = random.nextInt(ROWS);
+                int ex = random.nextInt(COLUMNS);
+                int ey = random.nextInt(ROWS);
+                if (!room.isWalkable(sx, sy) || !room.isWalkable(ex, ey)){
+                    continue;
+                }
+                searches++;
+
+                int expected = length(astar.find(room, sx, sy, ex, ey), false);
+                int actual = length(jps.find(room, sx, sy, ex, ey), false);
+                int expectedDiagonal = length(astarDiagonal.find(room, sx, sy, ex, ey), true);
+                int actualDiagonal = length(jpsDiagonal.find(room, sx, sy, ex, ey), true);
+                astarExpanded += astar.expanded;
+                jpsExpanded += jps.expanded;
+                astarDiagonalExpanded += astarDiagonal.expanded;
+                jpsDiagonalExpanded += jpsDiagonal.expanded;
+
+                if (expected != actual || expectedDiagonal != actualDiagonal){
+                    mismatches++;
+                    if (mismatches <= 5){
+                        System.out.println("room " + i + " from " + sx + "," + sy + " to " + ex + "," + ey
+                                + ": A* " + expected + " jps " + actual
+                                + ", diagonal " + expectedDiagonal + " jps " + actualDiagonal);
+                    }
+                }
+            }
+        }
+
+        System.out.println(searches + " searches, " + mismatches + " mismatches");
+        System.out.println("orthogonal: A* expanded " + astarExpanded + ", jps " + jpsExpanded
+                + " (" + percent(jpsExpanded, astarExpanded) + ")");
+        System.out.println("diagonal: A* expanded " + astarDiagonalExpanded + ", jps " + jpsDiagonalExpanded
+                + " (" + percent(jpsDiagonalExpanded, astarDiagonalExpanded) + ")");
+        if (mismatches > 0){
+            System.out.println("FAILED: jump point search and A* disagree on " + mismatches + " searches");
+            System.exit(1);
+        }
+    }
+
+    private static String percent(long part, long whole){
+        return Math.round(100.0 * part / Math.max(whole, 1)) + "%";
+    }
+
+    // the cost of a path, 1 per step without diagonals and 10/14 with them,
+    // -1 if there is none and -2 if it makes an illegal step
+    private static int length(ArrayList<Node> path, boolean diagonal){
+        if (path == null){
+            return -1;
+        }
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++){
+            int dx = Math.abs(path.get(i).x - path.get(i - 1).x);
+            int dy = Math.abs(path.get(i).y - path.get(i - 1).y);
+            if (dx > 1 || dy > 1 || dx + dy == 0 || (!diagonal && dx + dy > 1)){
+                return -2;
+            }
+            cost += diagonal ? (dx + dy == 2 ? 14 : 10) : 1;
+        }
+        return cost;
+    }
+}
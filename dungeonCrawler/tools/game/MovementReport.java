@@ -0,0 +1,108 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static game.Dungeon.*;
+
+// searches the same random rooms between the same tiles with every movement
+// model, plain and weighted, and prints how many nodes each expanded, how long
+// it took and how much longer its paths came out than the shortest ones.
+// "old" is the |dx - dy| estimate the pathfinder used to have.
+// run with: java game.MovementReport [rooms] [seed], see Fixtures
+public class MovementReport {
+
+    private static final int SEARCHES_PER_ROOM = 20;
+
+    // the old estimate, which is 0 along every diagonal and so barely guides the search
+    private static final MovementModel OLD = new ManhattanMovement(){
+        @Override
+        public String name(){
+            return "old";
+        }
+
+        @Override
+        public int estimate(int x1, int y1, int x2, int y2){
+            return 10 * Math.abs(Math.abs(x1 - x2) - Math.abs(y1 - y2));
+        }
+    };
+
+    public static void main(String[] args){
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : Dungeon.defaultSeed();
+        System.out.println("rooms: " + rooms + ", seed: " + seed);
+
+        MovementModel[] models = {OLD, MovementModel.MANHATTAN, MovementModel.OCTILE, WeightedMovement.DOORS_SLOW};
+        double[] weights = {1, 1.5, 2};
+
+        // the same rooms and tiles for every run
+        SplittableRandom random = new SplittableRandom(seed);
+        Room[] layouts = new Room[rooms];
+        int[][] searches = new int[rooms][];
+        for (int i = 0; i < rooms; i++){
+            Room room = Fixtures.randomRoom(i, random);
+            layouts[i] = room;
+            searches[i] = new int[SEARCHES_PER_ROOM * 2];
+            for (int s = 0; s < searches[i].length; s += 2){
+                // doors are walkable, so ends land on them now and then
+                searches[i][s] = randomWalkable(room, random);
+                searches[i][s + 1] = randomWalkable(room, random);
+            }
+        }
+
+        System.out.println(String.format("%-18s %6s %12s %10s %10s", "model", "weight", "expanded", "ms", "cost"));
+        for (MovementModel model : models){
+            long optimalCost = 0;
+            for (double weight : weights){
+                if (model == OLD && weight != 1){
+                    continue;
+                }
+                Pathfinder pathfinder = new Pathfinder(model, weight);
+                long expanded = 0;
+                long cost = 0;
+                long startTime = System.nanoTime();
+                for (int i = 0; i < rooms; i++){
+                    Room room = layouts[i];
+                    for (int s = 0; s < searches[i].length; s += 2){
+                        int start = searches[i][s];
+                        int goal = searches[i][s + 1];
+                        ArrayList<Node> path = pathfinder.find(room, start % COLUMNS, start / COLUMNS,
+                                goal % COLUMNS, goal / COLUMNS);
+                        expanded += pathfinder.expanded;
+                        cost += cost(room, model, path);
+                    }
+                }
+                long millis = (System.nanoTime() - startTime) / 1_000_000;
+                if (weight == 1){
+                    optimalCost = cost;
+                }
+                System.out.println(String.format("%-18s %6s %12d %10d %9.3fx", model.name(), weight, expanded, millis,
+                        (double) cost / Math.max(optimalCost, 1)));
+            }
+        }
+    }
+
+    private static int randomWalkable(Room room, SplittableRandom random){
+        while (true){
+            int x = random.nextInt(COLUMNS);
+            int y = random.nextInt(ROWS);
+            if (room.isWalkable(x, y)){
+                return y * COLUMNS + x;
+            }
+        }
+    }
+
+    // what the path costs under the model, 0 if there is none
+    private static long cost(Room room, MovementModel model, ArrayList<Node> path){
+        if (path == null){
+            return 0;
+        }
+        long cost = 0;
+        for (int i = 1; i < path.size(); i++){
+            Node from = path.get(i - 1);
+            Node to = path.get(i);
+            cost += model.cost(room, from.x, from.y, to.x - from.x, to.y - from.y);
+        }
+        return cost;
+    }
+}